@@ -0,0 +1,227 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An on-disk index of the files of a catalog, which lets a later walk of the catalog's folders
+ * (in the same or another process) reuse the listing of every folder whose modification time has
+ * not changed, and list again only the folders that did (whose entries were added, removed or renamed).
+ *
+ * The index is opt-in: it is stored only when the {@value #FOLDER_PROPERTY} system property names a
+ * folder (e.g., in the build folder of the project, rather than a folder shared with other users), in
+ * a file named after the catalog path and file extensions. It is discarded when the content of the
+ * catalog file, its rewrite rules or the file extensions change.
+ */
+final class CatalogIndex {
+
+    /**
+     * The system property of the folder of the indices
+     */
+    static final String FOLDER_PROPERTY = "owl.catalog.index";
+
+    private static final int VERSION = 1;
+
+    /*
+     * Folders modified this recently (in ms) before they are listed are listed again next time,
+     * since later changes may not change their modification time (given its granularity)
+     */
+    private static final long MODIFIED_MARGIN = 2000;
+
+    private final File file;
+
+    private final String digest;
+
+    /**
+     * The listing of a folder: its files (with the file extensions) and sub folders, in listing order
+     */
+    static final class Folder {
+        final String name;
+        final long modified;
+        final List<Object> entries; // String (file name) or Folder
+
+        Folder(String name, long modified, List<Object> entries) {
+            this.name = name;
+            this.modified = modified;
+            this.entries = entries;
+        }
+
+        /**
+         * Whether this listing is still valid for a folder with the given modification time
+         */
+        boolean isValid(long modified) {
+            return this.modified != -1 && this.modified == modified;
+        }
+
+        /**
+         * Gets the listings of the sub folders by name
+         */
+        Map<String, Folder> getFolders() {
+            var folders = new HashMap<String, Folder>();
+            for (Object entry : entries) {
+                if (entry instanceof Folder) {
+                    folders.put(((Folder) entry).name, (Folder) entry);
+                }
+            }
+            return folders;
+        }
+
+        /**
+         * Creates a listing of a folder that was just listed
+         */
+        static Folder create(String name, long modified, long listed, List<Object> entries) {
+            return new Folder(name, (modified + MODIFIED_MARGIN < listed) ? modified : -1, entries);
+        }
+    }
+
+    private CatalogIndex(File file, String digest) {
+        this.file = file;
+        this.digest = digest;
+    }
+
+    /**
+     * Gets the index of the given catalog (or null if the index is not enabled)
+     *
+     * @param catalogFile the catalog file
+     * @param rewriteRules the rewrite rules of the catalog
+     * @param fileExtensions the file extensions
+     * @return the index of the catalog (or null)
+     */
+    static CatalogIndex of(File catalogFile, Map<String, ?> rewriteRules, List<String> fileExtensions) {
+        String folder = System.getProperty(FOLDER_PROPERTY, "");
+        if (folder.isEmpty()) {
+            return null;
+        }
+        try {
+            String name = sha256(catalogFile.getAbsolutePath() + "\n" + fileExtensions);
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(catalogFile.toPath()));
+            digest.update((rewriteRules + "\n" + fileExtensions).getBytes(StandardCharsets.UTF_8));
+            return new CatalogIndex(new File(folder, name + ".index"), hex(digest.digest()));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads the listings of the root folders (or none if the index is missing, stale or corrupt)
+     *
+     * @return a map from root folder path to listing
+     */
+    Map<String, Folder> load() {
+        if (!file.isFile()) {
+            return Collections.emptyMap();
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != VERSION || !in.readUTF().equals(digest)) {
+                return Collections.emptyMap();
+            }
+            var roots = new HashMap<String, Folder>();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                var root = read(in);
+                roots.put(root.name, root);
+            }
+            return roots;
+        } catch (IOException | RuntimeException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Saves the listings of the root folders (replacing the index atomically, and ignoring errors
+     * since the index is only an optimization)
+     *
+     * @param roots the listings of the root folders (named by their paths)
+     */
+    void save(List<Folder> roots) {
+        try {
+            file.getParentFile().mkdirs();
+            Path temp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            try {
+                try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(VERSION);
+                    out.writeUTF(digest);
+                    out.writeInt(roots.size());
+                    for (Folder root : roots) {
+                        write(out, root);
+                    }
+                }
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // the index will be created again next time
+        }
+    }
+
+    private static Folder read(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        long modified = in.readLong();
+        int count = in.readInt();
+        var entries = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(in.readBoolean() ? read(in) : in.readUTF());
+        }
+        return new Folder(name, modified, entries);
+    }
+
+    private static void write(DataOutputStream out, Folder folder) throws IOException {
+        out.writeUTF(folder.name);
+        out.writeLong(folder.modified);
+        out.writeInt(folder.entries.size());
+        for (Object entry : folder.entries) {
+            if (entry instanceof Folder) {
+                out.writeBoolean(true);
+                write(out, (Folder) entry);
+            } else {
+                out.writeBoolean(false);
+                out.writeUTF((String) entry);
+            }
+        }
+    }
+
+    private static String sha256(String s) throws NoSuchAlgorithmException {
+        return hex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String hex(byte[] bytes) {
+        var sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
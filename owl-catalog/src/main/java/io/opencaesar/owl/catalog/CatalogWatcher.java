@@ -0,0 +1,156 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.catalog;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A watcher of the folders of the rewrite rules of a catalog, which reports the files (with the given
+ * extensions) that were created, modified or deleted once their changes settle for a quiet period,
+ * so that a save that touches a file several times (or several files) is reported once.
+ * It is used by the watch modes of the tools that load the files of a catalog.
+ */
+public final class CatalogWatcher implements AutoCloseable {
+
+    private final static Logger LOGGER = Logger.getLogger(CatalogWatcher.class);
+
+    private final WatchService service;
+
+    private final Map<WatchKey, Path> folders = new HashMap<>();
+
+    private final List<String> fileExtensions;
+
+    private final long quietMillis;
+
+    /**
+     * Creates a new CatalogWatcher object
+     *
+     * @param catalog the catalog whose rewrite folders are watched
+     * @param fileExtensions the extensions of the files to report
+     * @param quietMillis the time without changes after which the changes are reported
+     * @throws IOException when the folders cannot be watched
+     */
+    public CatalogWatcher(OwlCatalog catalog, List<String> fileExtensions, long quietMillis) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.fileExtensions = fileExtensions;
+        this.quietMillis = quietMillis;
+        for (URI uri : catalog.getRewriteRules().values()) {
+            var path = new File(uri);
+            if (path.isDirectory()) {
+                registerAll(path.toPath());
+            } else if (path.getParentFile() != null && path.getParentFile().isDirectory()) {
+                // likely a file name with no extension
+                register(path.getParentFile().toPath());
+            }
+        }
+        LOGGER.info("Watching " + folders.size() + " folder(s)");
+    }
+
+    /**
+     * Waits for changes to the files and returns them once they settle
+     *
+     * @return the changed files (which may no longer exist if they were deleted)
+     * @throws InterruptedException when interrupted while waiting
+     * @throws IOException when new folders cannot be watched
+     */
+    public Collection<File> take() throws InterruptedException, IOException {
+        var changes = new LinkedHashSet<File>();
+        while (changes.isEmpty()) {
+            WatchKey key = service.take();
+            while (key != null) {
+                collect(key, changes);
+                key = service.poll(quietMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return changes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+
+    private void collect(WatchKey key, Set<File> changes) throws IOException {
+        Path folder = folders.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                LOGGER.warn("Some changes in " + folder + " were missed");
+                continue;
+            }
+            Path path = folder.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                // a new folder (whose files may have been created before it was watched)
+                registerAll(path);
+                try (var files = Files.walk(path)) {
+                    files.filter(Files::isRegularFile).filter(this::hasExtension).forEach(f -> changes.add(f.toFile()));
+                }
+            } else if (hasExtension(path)) {
+                changes.add(path.toFile());
+            }
+        }
+        if (!key.reset()) {
+            folders.remove(key);
+        }
+    }
+
+    private boolean hasExtension(Path path) {
+        String name = path.getFileName().toString();
+        int i = name.lastIndexOf('.');
+        return i != -1 && fileExtensions.contains(name.substring(i + 1));
+    }
+
+    private void registerAll(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path folder) throws IOException {
+        if (!folders.containsValue(folder)) {
+            folders.put(folder.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), folder);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.opencaesar.owl.catalog.CatalogIndex.Folder;
+
+/**
+ * A walker of folder trees that finds the files with given extensions. Every folder is listed by its
+ * own fork-join task (so sibling subtrees are listed in parallel), and the attributes that the listing
+ * reads for every entry are reused to tell files from folders (instead of a system call per check),
+ * which matters most on network file systems. The files are returned in the same order as a
+ * sequential depth-first walk.
+ *
+ * The walk can reuse the listings of a previous walk (see {@link CatalogIndex}), in which case only
+ * the folders whose modification time changed are listed again.
+ */
+final class FileWalker {
+
+    private final Set<String> fileExtensions;
+
+    private final AtomicBoolean listed = new AtomicBoolean();
+
+    /**
+     * Creates a new FileWalker object
+     *
+     * @param fileExtensions the extensions of the files to find
+     */
+    FileWalker(Collection<String> fileExtensions) {
+        this.fileExtensions = new HashSet<>(fileExtensions);
+    }
+
+    /**
+     * Walks the given folders in parallel
+     *
+     * @param folders the folders
+     * @param previous the listings of a previous walk of the folders (by folder path)
+     * @return the listings of the folders (in the order of the folders)
+     */
+    List<Folder> walk(List<Path> folders, Map<String, Folder> previous) {
+        var tasks = new ArrayList<FolderTask>();
+        for (Path folder : folders) {
+            var task = new FolderTask(folder, folder.toString(), previous.get(folder.toString()), Collections.emptySet());
+            task.fork(); // in the common pool unless already in a pool
+            tasks.add(task);
+        }
+        var listings = new ArrayList<Folder>();
+        for (FolderTask task : tasks) {
+            listings.add(task.join());
+        }
+        return listings;
+    }
+
+    /**
+     * Whether any folder was listed (instead of reusing its previous listing) by the walks so far
+     *
+     * @return whether any folder was listed
+     */
+    boolean hasListed() {
+        return listed.get();
+    }
+
+    /**
+     * Gets the files of the given listing
+     *
+     * @param folder the path of the listed folder
+     * @param listing the listing of the folder
+     * @return the files in the folder's tree (in depth-first order)
+     */
+    static List<Path> getFiles(Path folder, Folder listing) {
+        var files = new ArrayList<Path>();
+        addFiles(folder, listing, files);
+        return files;
+    }
+
+    private static void addFiles(Path folder, Folder listing, List<Path> files) {
+        for (Object entry : listing.entries) {
+            if (entry instanceof Folder) {
+                addFiles(folder.resolve(((Folder) entry).name), (Folder) entry, files);
+            } else {
+                files.add(folder.resolve((String) entry));
+            }
+        }
+    }
+
+    /*
+     * A task that lists a folder (or reuses its previous listing) and forks a task for every sub folder
+     */
+    @SuppressWarnings("serial")
+    private class FolderTask extends RecursiveTask<Folder> {
+
+        private final Path folder;
+
+        private final String name;
+
+        private final Folder previous;
+
+        /*
+         * The keys of the ancestor folders (to not walk a cycle of symbolic links forever)
+         */
+        private final Set<Object> ancestorKeys;
+
+        FolderTask(Path folder, String name, Folder previous, Set<Object> ancestorKeys) {
+            this.folder = folder;
+            this.name = name;
+            this.previous = previous;
+            this.ancestorKeys = ancestorKeys;
+        }
+
+        @Override
+        protected Folder compute() {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(folder, BasicFileAttributes.class);
+            } catch (IOException e) {
+                return new Folder(name, -1, Collections.emptyList()); // e.g., a broken link
+            }
+            var folderKeys = new HashSet<Object>(ancestorKeys);
+            if (attrs.fileKey() != null && !folderKeys.add(attrs.fileKey())) {
+                return new Folder(name, -1, Collections.emptyList());
+            }
+            long modified = attrs.lastModifiedTime().toMillis();
+            // the entries of the folder: either a file name (String) or a sub folder (FolderTask)
+            var entries = new ArrayList<Object>();
+            if (previous != null && previous.isValid(modified)) {
+                for (Object entry : previous.entries) {
+                    if (entry instanceof Folder) {
+                        var subfolder = (Folder) entry;
+                        var task = new FolderTask(folder.resolve(subfolder.name), subfolder.name, subfolder, folderKeys);
+                        task.fork();
+                        entries.add(task);
+                    } else {
+                        entries.add(entry);
+                    }
+                }
+                return new Folder(name, modified, join(entries));
+            }
+            listed.set(true);
+            long now = System.currentTimeMillis();
+            var previousFolders = (previous != null) ? previous.getFolders() : Collections.<String, Folder>emptyMap();
+            try {
+                Files.walkFileTree(folder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 1, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        // at the maximum depth, sub folders are visited as files
+                        String fileName = file.getFileName().toString();
+                        if (attrs.isDirectory()) {
+                            var task = new FolderTask(file, fileName, previousFolders.get(fileName), folderKeys);
+                            task.fork();
+                            entries.add(task);
+                        } else if (attrs.isRegularFile() && hasExtension(fileName)) {
+                            entries.add(fileName);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE; // e.g., a broken link or an unreadable folder
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return Folder.create(name, modified, now, join(entries));
+        }
+
+        private List<Object> join(List<Object> entries) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i) instanceof FolderTask) {
+                    entries.set(i, ((FolderTask) entries.get(i)).join());
+                }
+            }
+            return entries;
+        }
+    }
+
+    private boolean hasExtension(String fileName) {
+        int i = fileName.lastIndexOf('.');
+        return fileExtensions.contains(i != -1 ? fileName.substring(i + 1) : "");
+    }
+}
@@ -0,0 +1,479 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.xml.resolver.Catalog;
+import org.apache.xml.resolver.CatalogEntry;
+import org.apache.xml.resolver.CatalogManager;
+
+/**
+ * The <b>Catalog</b> that resolves logical IRIs to physical URIs. It is a
+ * wrapper around the the Apache XML Resolver Catalog that indexes its rewrite
+ * rules once: IRIs are resolved with a trie of the rules' start strings, the
+ * files mapped by the rules are walked once (in parallel, per list of file extensions) and
+ * cached (in memory, and in an on-disk index when enabled, see CatalogIndex), and file paths
+ * are deresolved with a trie of the rules' folders (so the result does not depend
+ * on which files were walked).
+ * It is safe for concurrent lookups. Call {@link #refresh()} after files are
+ * added or removed to drop the cached resolutions and files.
+ *
+ * @author elaasar
+ */
+public final class OwlCatalog {
+
+    /*
+     * The singleton catalog manager
+     */
+    private static CatalogManager manager = new CatalogManager();
+    static {
+        manager.setUseStaticCatalog(false);
+        manager.setIgnoreMissingProperties(true);
+    }
+
+    /*
+     * The value cached for IRIs that cannot be resolved
+     */
+    private static final String UNRESOLVED = new String();
+
+    /*
+     * The catalog file
+     */
+    private final File catalogFile;
+
+    /*
+     * The wrapped Apache catalog
+     */
+    private final CatalogEx catalog;
+
+    /*
+     * The file extensions
+     */
+    private final List<String> fileExtensions;
+
+    /*
+     * The rewrite rules (from start string to rewrite URI without a trailing slash)
+     */
+    private final Map<String, URI> rewriteRules;
+
+    /*
+     * A trie from the start strings of the rewrite rules to their rewrite prefixes, or null
+     * when the catalog has other kinds of entries (so it is resolved by the wrapped catalog)
+     */
+    private final PrefixTrie<String> rewriteTrie;
+
+    /*
+     * A trie from the folder paths (with a trailing separator) of the rewrite rules to their start strings
+     */
+    private final PrefixTrie<String> reverseTrie;
+
+    /*
+     * The cached resolutions of IRIs
+     */
+    private final Map<String, String> resolutions = new ConcurrentHashMap<>();
+
+    /*
+     * The cached file maps (by list of file extensions)
+     */
+    private final Map<List<String>, Map<String, URI>> fileMaps = new ConcurrentHashMap<>();
+
+    /*
+     * Creates a new OwlCatalog instance
+     */
+    private OwlCatalog(File catalogFile, CatalogEx catalog, List<String> fileExtensions) {
+        this.catalogFile = catalogFile;
+        this.catalog = catalog;
+        this.fileExtensions = List.copyOf(fileExtensions);
+        this.rewriteRules = Collections.unmodifiableMap(createRewriteRules());
+        this.rewriteTrie = createRewriteTrie();
+        this.reverseTrie = createReverseTrie();
+    }
+
+    /**
+     * Creates a new Owl Catalog given a catalog file and a list of file extensions
+     *
+     * @param catalogFile    The catalog file
+     * @param fileExtensions The file extensions (of the files that IRIs are resolved to when their
+     *                       resolved paths have no extension)
+     * @return A new instance of Owl Catalog
+     * @throws IOException When there are problems parsing the catalog
+     */
+    public static OwlCatalog create(File catalogFile, List<String> fileExtensions) throws IOException {
+        CatalogEx catalog = new CatalogEx(catalogFile.toURI());
+        catalog.setCatalogManager(manager);
+        catalog.setupReaders();
+        catalog.loadSystemCatalogs();
+        catalog.parseCatalog(catalogFile.toString());
+        return new OwlCatalog(catalogFile, catalog, fileExtensions);
+    }
+
+    /**
+     * Resolves the given URI to a file path
+     *
+     * @param uri The URI to resolve
+     * @return The resolved file path (or null if the URI cannot be resolved)
+     */
+    public String resolveURI(String uri) {
+        String resolved = resolutions.computeIfAbsent(uri, u -> {
+            String r = doResolveURI(u);
+            return (r != null) ? r : UNRESOLVED;
+        });
+        return (resolved != UNRESOLVED) ? resolved : null;
+    }
+
+    private String doResolveURI(String uri) {
+        try {
+            String resolved = rewrite(uri);
+            if (resolved == null) {
+                return null;
+            }
+            resolved = normalize(resolved);
+            if (resolved.startsWith("file:")) {
+                File f = new File(new URI(resolved));
+                if (!f.isFile()) {
+                    for (String ext : fileExtensions) {
+                        File f_ext = new File(f.toString() + "." + ext);
+                        if (f_ext.isFile())
+                            return resolved + "." + ext;
+                    }
+                }
+            }
+            return resolved;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /*
+     * Rewrites the given URI with the longest matching rewrite rule
+     */
+    private String rewrite(String uri) throws IOException {
+        if (rewriteTrie == null || !isPlain(uri)) {
+            synchronized (catalog) {
+                return catalog.resolveURI(uri);
+            }
+        }
+        var match = rewriteTrie.longestPrefix(uri);
+        return (match != null) ? match.value + uri.substring(match.prefix.length()) : null;
+    }
+
+    /*
+     * Whether the given URI is not changed by the normalization of the wrapped catalog
+     */
+    private static boolean isPlain(String uri) {
+        if (uri.startsWith("urn:publicid:")) {
+            return false;
+        }
+        for (int i = 0; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c <= 0x20 || c >= 0x7F || "\"<>\\^`{|}".indexOf(c) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deresolves the given file path to a URI
+     *
+     * @param path The file path to resolve
+     * @return The resolved URI (or null if the path is not mapped by the catalog)
+     */
+    public String deresolveURI(String path) {
+        // the longest folder wins, and the first rule of equal folders
+        int i = path.lastIndexOf('.');
+        if (i != -1) {
+            path = path.substring(0, i);
+        }
+        var match = reverseTrie.longestPrefix(path);
+        if (match != null) {
+            // Make sure to replace the OS-specific separator char with the '/' character for URIs.
+            String suffix = path.substring(match.prefix.length()).replace(File.separatorChar, '/');
+            return match.value + suffix;
+        }
+        return null;
+    }
+
+    /**
+     * Drops the cached resolutions and files (e.g., after files are added or removed)
+     */
+    public void refresh() {
+        resolutions.clear();
+        fileMaps.clear();
+    }
+
+    /**
+     * Gets the current base of the catalog
+     *
+     * @return The current base of the catalog
+     */
+    public String getCurrentBase() {
+        return catalog.getCurrentBase();
+    }
+
+    /**
+     * Gets the base URI
+     *
+     * @return The base URI
+     */
+    public URI getBaseUri() {
+        return catalog.getBaseUri();
+    }
+
+    /**
+     * Gets the catalog entries
+     *
+     * @return The entries of the catalog
+     */
+    public List<CatalogEntry> getEntries() {
+        List<CatalogEntry> entries = new ArrayList<CatalogEntry>();
+        Enumeration<?> en = catalog.getCatalogEntries().elements();
+        while (en.hasMoreElements()) {
+            entries.add((CatalogEntry) en.nextElement());
+        }
+        return entries;
+    }
+
+    /**
+     * Gets the nested catalogs of this catalog
+     *
+     * @return The nested catalog of this catalog
+     */
+    public List<String> getNestedCatalogs() {
+        List<String> entries = new ArrayList<String>();
+        Enumeration<?> en = catalog.getCatalogs().elements();
+        while (en.hasMoreElements()) {
+            entries.add((String) en.nextElement());
+        }
+        return entries;
+    }
+
+    /**
+     * Gets the URIs that are used for rewrite rules in this catalog
+     *
+     * @return a map of rewrite URIs
+     */
+    public Map<String, URI> getRewriteRules() {
+        return rewriteRules;
+    }
+
+    private Map<String, URI> createRewriteRules() {
+        var rewriteUris = new LinkedHashMap<String, URI>();
+        for (CatalogEntry e : getEntries()) {
+            if (e.getEntryType() == Catalog.REWRITE_URI) { // only type of entry supported so far
+                var uri = URI.create(normalize(e.getEntryArg(1)));
+                String s = uri.toString();
+                if (s.endsWith("/")) {
+                    try {
+                        uri = new URI(s.substring(0, s.length() - 1));
+                    } catch (URISyntaxException e1) {
+                        e1.printStackTrace();
+                    }
+                }
+                rewriteUris.put(e.getEntryArg(0), uri);
+            }
+        }
+        return rewriteUris;
+    }
+
+    private PrefixTrie<String> createRewriteTrie() {
+        if (!getNestedCatalogs().isEmpty()) {
+            return null;
+        }
+        var trie = new PrefixTrie<String>();
+        var startStrings = new HashSet<String>();
+        for (CatalogEntry e : getEntries()) {
+            if (e.getEntryType() != Catalog.REWRITE_URI) {
+                return null;
+            }
+            // like the wrapped catalog, the first of equal start strings wins
+            if (startStrings.add(e.getEntryArg(0))) {
+                trie.put(e.getEntryArg(0), e.getEntryArg(1));
+            }
+        }
+        return trie;
+    }
+
+    private PrefixTrie<String> createReverseTrie() {
+        var trie = new PrefixTrie<String>();
+        var folders = new HashSet<String>();
+        for (Map.Entry<String, URI> e : rewriteRules.entrySet()) {
+            var folder = toFile(e.getValue());
+            // the first of the rules with equal folders wins
+            if (folder != null && folders.add(folder.toString())) {
+                trie.put(folder.toString() + File.separator, e.getKey());
+            }
+        }
+        return trie;
+    }
+
+    private String normalize(String path) {
+        java.net.URI uri = java.net.URI.create(path);
+        java.net.URI normalized = uri.normalize();
+        return path.replaceFirst(uri.getRawPath(), normalized.getRawPath());
+    }
+
+    /**
+     * Gets the URIs of files (with the catalog's file extensions) that are mapped by this catalog
+     *
+     * @return a map from IRI to file URI
+     */
+    public Map<String, URI> getFileUriMap() {
+        return getFileUriMap(fileExtensions);
+    }
+
+    /**
+     * Gets the URIs of files (with the given file extensions) that are mapped by this catalog
+     *
+     * @param fileExtensions a list of file extension
+     * @return a map from IRI to file URI
+     */
+    public Map<String, URI> getFileUriMap(List<String> fileExtensions) {
+        var key = List.copyOf(fileExtensions);
+        return fileMaps.computeIfAbsent(key, k -> Collections.unmodifiableMap(createFileUriMap(k)));
+    }
+
+    /**
+     * Gets the URIs of files (with the given file extensions) that are mapped by this catalog
+     *
+     * @param fileExtensions a list of file extension
+     * @return a list of file URIs
+     */
+    public List<URI> getFileUris(List<String> fileExtensions) {
+        return new ArrayList<>(getFileUriMap(fileExtensions).values());
+    }
+
+    private Map<String, URI> createFileUriMap(List<String> fileExtensions) {
+        // walk the folders of all the rules at once
+        var folders = new LinkedHashMap<String, Path>();
+        for (final var rewriteRule : rewriteRules.entrySet()) {
+            var path = toFile(rewriteRule.getValue());
+            if (path != null && path.isDirectory()) {
+                folders.put(rewriteRule.getKey(), path.toPath());
+            }
+        }
+        // reusing the listings of the unchanged folders from the index (if any)
+        var index = CatalogIndex.of(catalogFile, rewriteRules, fileExtensions);
+        var previous = (index != null) ? index.load() : Collections.<String, CatalogIndex.Folder>emptyMap();
+        var walker = new FileWalker(fileExtensions);
+        var listings = walker.walk(new ArrayList<>(folders.values()), previous);
+        if (index != null && (walker.hasListed() || !previous.keySet().containsAll(folders.values().stream().map(Path::toString).collect(Collectors.toList())))) {
+            index.save(listings);
+        }
+        var folderFiles = new HashMap<String, List<Path>>();
+        var listing = listings.iterator();
+        folders.forEach((key, folder) -> folderFiles.put(key, FileWalker.getFiles(folder, listing.next())));
+
+        var uris = new HashMap<String, URI>();
+        for (final var rewriteRule : rewriteRules.entrySet()) {
+            var rewriteUri = rewriteRule.getValue();
+            var path = toFile(rewriteUri);
+            if (path == null) {
+                continue; // not a file URI
+            }
+            var files = folderFiles.get(rewriteRule.getKey());
+            if (files != null) {
+                for (var file : files) {
+                    String relative = folders.get(rewriteRule.getKey()).relativize(file).toString().replace(File.separatorChar, '/');
+                    uris.put(rewriteRule.getKey() + trimFileExtension(relative),
+                            URI.create(rewriteUri + "/" + relative));
+                }
+            } else { // likely a file name with no extension
+                for (String ext : fileExtensions) {
+                    var file = new File(path.toString() + "." + ext);
+                    if (file.exists()) {
+                        uris.put(rewriteRule.getKey(), URI.create(path.toString() + "." + ext));
+                        break;
+                    }
+                }
+            }
+        }
+        return uris;
+    }
+
+    private static File toFile(URI uri) {
+        try {
+            return new File(uri);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String trimFileExtension(final String fileName) {
+        int i = fileName.lastIndexOf('.');
+        if (i != -1)
+            return fileName.substring(0, i);
+        else
+            return fileName;
+    }
+
+    private static class CatalogEx extends Catalog {
+        private URI baseUri;
+
+        public CatalogEx(URI catalogUri) {
+            String s = catalogUri.toString();
+            int i = s.lastIndexOf("/");
+            try {
+                this.baseUri = new URI(s.substring(0, i));
+            } catch (URISyntaxException e) {
+                e.printStackTrace();
+            }
+        }
+
+        URI getBaseUri() {
+            return baseUri;
+        }
+
+        Vector<?> getCatalogEntries() {
+            return catalogEntries;
+        }
+
+        Vector<?> getCatalogs() {
+            return catalogs;
+        }
+
+        @Override
+        protected String makeAbsolute(String sysid) {
+            sysid = fixSlashes(sysid);
+            try {
+                if (new URI(sysid).isAbsolute()) {
+                    return sysid;
+                }
+            } catch (URISyntaxException e) {
+                // resolve it against the base
+            }
+            return baseUri.toString() + '/' + sysid;
+        }
+    }
+
+}
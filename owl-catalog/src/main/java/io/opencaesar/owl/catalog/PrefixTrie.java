@@ -0,0 +1,86 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.catalog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A trie of string prefixes that finds the longest prefix of a string in time proportional to the
+ * length of the string (instead of the number of prefixes). It is not modified after it is built,
+ * so concurrent lookups are safe.
+ *
+ * @param <V> the type of the values of the prefixes
+ */
+final class PrefixTrie<V> {
+
+    private final Node<V> root = new Node<>();
+
+    private static class Node<V> {
+        final Map<Character, Node<V>> children = new HashMap<>();
+        String prefix;
+        V value;
+    }
+
+    /**
+     * A prefix that matched a string
+     *
+     * @param <V> the type of the value of the prefix
+     */
+    static final class Match<V> {
+        final String prefix;
+        final V value;
+
+        Match(String prefix, V value) {
+            this.prefix = prefix;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Adds the given prefix with the given value (replacing the value of an equal prefix)
+     *
+     * @param prefix the prefix
+     * @param value the value of the prefix
+     */
+    void put(String prefix, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node<>());
+        }
+        node.prefix = prefix;
+        node.value = value;
+    }
+
+    /**
+     * Finds the longest prefix of the given string
+     *
+     * @param s the string
+     * @return the longest prefix of the string, or null if no prefix matches
+     */
+    Match<V> longestPrefix(String s) {
+        Node<V> node = root;
+        Node<V> match = root.prefix != null ? root : null;
+        for (int i = 0; i < s.length() && node != null; i++) {
+            node = node.children.get(s.charAt(i));
+            if (node != null && node.prefix != null) {
+                match = node;
+            }
+        }
+        return (match != null) ? new Match<>(match.prefix, match.value) : null;
+    }
+}
@@ -0,0 +1,185 @@
+package io.opencaesar.owl.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.xml.resolver.Catalog;
+import org.apache.xml.resolver.CatalogEntry;
+import org.apache.xml.resolver.CatalogManager;
+
+/**
+ * The catalog that the tools used before OwlCatalog was shared, which resolves every IRI with the
+ * Apache catalog, deresolves every path by scanning the rewrite rules, and walks the folders of the
+ * rules with java.io. The tests check that OwlCatalog gives the same results.
+ */
+final class ReferenceCatalog {
+
+    private static CatalogManager manager = new CatalogManager();
+    static {
+        manager.setUseStaticCatalog(false);
+        manager.setIgnoreMissingProperties(true);
+    }
+
+    private final CatalogEx catalog;
+
+    private final List<String> fileExtensions;
+
+    private ReferenceCatalog(CatalogEx catalog, List<String> fileExtensions) {
+        this.catalog = catalog;
+        this.fileExtensions = fileExtensions;
+    }
+
+    static ReferenceCatalog create(File catalogFile, List<String> fileExtensions) throws IOException {
+        CatalogEx catalog = new CatalogEx(catalogFile.toURI());
+        catalog.setCatalogManager(manager);
+        catalog.setupReaders();
+        catalog.loadSystemCatalogs();
+        catalog.parseCatalog(catalogFile.toString());
+        return new ReferenceCatalog(catalog, fileExtensions);
+    }
+
+    String resolveURI(String uri) throws Exception {
+        String resolved = catalog.resolveURI(uri);
+        if (resolved == null) {
+            return null;
+        }
+        resolved = normalize(resolved);
+        if (resolved.startsWith("file:")) {
+            File f = new File(new URI(resolved));
+            if (!f.exists() || !f.isFile()) {
+                for (String ext : fileExtensions) {
+                    File f_ext = new File(f.toString() + "." + ext);
+                    if (f_ext.exists() && f_ext.isFile())
+                        return resolved + "." + ext;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    String deresolveURI(String path) {
+        int i = path.lastIndexOf('.');
+        if (i != -1) {
+            path = path.substring(0, i);
+        }
+        String startString = null;
+        String prefix = null;
+        for (Map.Entry<String, URI> e : getRewriteRules().entrySet()) {
+            String p = new File(e.getValue()).toString() + File.separator;
+            if (p.length() <= path.length() && p.equals(path.substring(0, p.length()))) {
+                if (startString == null || p.length() > startString.length()) {
+                    startString = p;
+                    prefix = e.getKey();
+                }
+            }
+        }
+        if (prefix == null) {
+            return null;
+        }
+        return prefix + path.substring(startString.length()).replace(File.separatorChar, '/');
+    }
+
+    Map<String, URI> getRewriteRules() {
+        var rewriteUris = new LinkedHashMap<String, URI>();
+        for (Object o : catalog.getCatalogEntries()) {
+            var e = (CatalogEntry) o;
+            if (e.getEntryType() == Catalog.REWRITE_URI) {
+                var uri = URI.create(normalize(e.getEntryArg(1)));
+                String s = uri.toString();
+                if (s.endsWith("/")) {
+                    uri = URI.create(s.substring(0, s.length() - 1));
+                }
+                rewriteUris.put(e.getEntryArg(0), uri);
+            }
+        }
+        return rewriteUris;
+    }
+
+    Map<String, URI> getFileUriMap() {
+        var uris = new HashMap<String, URI>();
+        for (final var rewriteRule : getRewriteRules().entrySet()) {
+            var rewriteUri = rewriteRule.getValue();
+            var path = new File(rewriteUri);
+            if (path.isDirectory()) {
+                for (var file : getFiles(path)) {
+                    String relative = path.toURI().relativize(file.toURI()).getPath();
+                    uris.put(rewriteRule.getKey() + trimFileExtension(relative),
+                            URI.create(rewriteUri + "/" + relative));
+                }
+            } else {
+                for (String ext : fileExtensions) {
+                    var file = new File(path.toString() + "." + ext);
+                    if (file.exists()) {
+                        uris.put(rewriteRule.getKey(), URI.create(path.toString() + "." + ext));
+                        break;
+                    }
+                }
+            }
+        }
+        return uris;
+    }
+
+    private List<File> getFiles(File folder) {
+        final var files = new LinkedHashSet<File>();
+        for (File file : folder.listFiles()) {
+            if (file.isFile()) {
+                String name = file.getName();
+                String ext = (name.lastIndexOf('.') != -1) ? name.substring(name.lastIndexOf('.') + 1) : "";
+                if (fileExtensions.contains(ext)) {
+                    files.add(file);
+                }
+            } else if (file.isDirectory()) {
+                files.addAll(getFiles(file));
+            }
+        }
+        return new ArrayList<File>(files);
+    }
+
+    private static String trimFileExtension(final String fileName) {
+        int i = fileName.lastIndexOf('.');
+        return (i != -1) ? fileName.substring(0, i) : fileName;
+    }
+
+    private static String normalize(String path) {
+        URI uri = URI.create(path);
+        return path.replaceFirst(uri.getRawPath(), uri.normalize().getRawPath());
+    }
+
+    private static class CatalogEx extends Catalog {
+        private URI baseUri;
+
+        CatalogEx(URI catalogUri) {
+            String s = catalogUri.toString();
+            try {
+                this.baseUri = new URI(s.substring(0, s.lastIndexOf("/")));
+            } catch (URISyntaxException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        List<?> getCatalogEntries() {
+            return catalogEntries;
+        }
+
+        @Override
+        protected String makeAbsolute(String sysid) {
+            sysid = fixSlashes(sysid);
+            try {
+                if (new URI(sysid).isAbsolute()) {
+                    return sysid;
+                }
+            } catch (URISyntaxException e) {
+                // resolve it against the base
+            }
+            return baseUri.toString() + '/' + sysid;
+        }
+    }
+}
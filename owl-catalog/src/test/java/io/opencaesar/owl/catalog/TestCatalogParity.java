@@ -0,0 +1,104 @@
+package io.opencaesar.owl.catalog;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that OwlCatalog resolves and deresolves 20k generated IRIs and paths (with overlapping
+ * rules and folders) like the catalog it replaced
+ */
+public class TestCatalogParity {
+
+    private static final List<String> EXTENSIONS = List.of("owl", "ttl", "nt");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private String indexProperty;
+
+    @Before
+    public void setUp() throws Exception {
+        indexProperty = System.getProperty(CatalogIndex.FOLDER_PROPERTY);
+        System.setProperty(CatalogIndex.FOLDER_PROPERTY, tmp.newFolder("index").getPath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (indexProperty != null) {
+            System.setProperty(CatalogIndex.FOLDER_PROPERTY, indexProperty);
+        } else {
+            System.clearProperty(CatalogIndex.FOLDER_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testParity() throws Exception {
+        var root = tmp.getRoot();
+        var catalogFile = new File(root, "catalog.xml");
+        Files.write(catalogFile.toPath(), String.join("\n",
+                "<?xml version=\"1.0\"?>",
+                "<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\" prefer=\"public\">",
+                "\t<rewriteURI uriStartString=\"http://example.com/\" rewritePrefix=\"src/example/\"/>",
+                "\t<rewriteURI uriStartString=\"https://example.com/\" rewritePrefix=\"src/example/\"/>",
+                "\t<rewriteURI uriStartString=\"http://example.com/lib/\" rewritePrefix=\"lib/\"/>",
+                "\t<rewriteURI uriStartString=\"http://example.com/f1/\" rewritePrefix=\"src/example/f1/g1/\"/>",
+                "\t<rewriteURI uriStartString=\"http://other.org\" rewritePrefix=\"src/other\"/>",
+                "</catalog>").getBytes(StandardCharsets.UTF_8));
+
+        var files = new ArrayList<File>();
+        String[] extensions = { "ttl", "owl", "nt", "txt" };
+        for (int f = 0; f < 10; f++) {
+            for (int g = 0; g < 10; g++) {
+                var folder = new File(root, "src/example/f" + f + "/g" + g);
+                folder.mkdirs();
+                for (int i = 0; i < 20; i++) {
+                    var file = new File(folder, "o" + i + "." + extensions[(f + g + i) % extensions.length]);
+                    Files.write(file.toPath(), new byte[0]);
+                    files.add(file);
+                }
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            var file = new File(root, (i % 2 == 0 ? "lib/" : "src/other/") + "l" + (i % 10) + "/o" + i + ".ttl");
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), new byte[0]);
+            files.add(file);
+        }
+
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+        var reference = ReferenceCatalog.create(catalogFile, EXTENSIONS);
+
+        var map = catalog.getFileUriMap();
+        Assert.assertEquals(reference.getFileUriMap(), map);
+
+        int count = 0;
+        for (String iri : map.keySet()) {
+            for (String variant : List.of(iri, iri + ".ttl", iri + "x", iri.replace("/o", "/x/../o"), iri.replace("http:", "https:"))) {
+                Assert.assertEquals(variant, reference.resolveURI(variant), catalog.resolveURI(variant));
+                count++;
+            }
+        }
+        for (File file : files) {
+            String path = file.toString();
+            Assert.assertEquals(path, reference.deresolveURI(path), catalog.deresolveURI(path));
+            count++;
+        }
+        for (URI uri : map.values()) {
+            String path = new File(uri).toString();
+            Assert.assertEquals(path, reference.deresolveURI(path), catalog.deresolveURI(path));
+            count++;
+        }
+        Assert.assertTrue(count >= 20_000);
+    }
+}
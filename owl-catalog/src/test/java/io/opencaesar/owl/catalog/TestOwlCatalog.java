@@ -0,0 +1,259 @@
+package io.opencaesar.owl.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestOwlCatalog {
+
+    private static final List<String> EXTENSIONS = List.of("owl", "ttl");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private String indexProperty;
+
+    @Before
+    public void setUp() throws Exception {
+        indexProperty = System.getProperty(CatalogIndex.FOLDER_PROPERTY);
+        System.setProperty(CatalogIndex.FOLDER_PROPERTY, tmp.newFolder("index").getPath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (indexProperty != null) {
+            System.setProperty(CatalogIndex.FOLDER_PROPERTY, indexProperty);
+        } else {
+            System.clearProperty(CatalogIndex.FOLDER_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        var catalogFile = catalog("catalog.xml", rule("http://example.com/", "src/"));
+        var a = file("src/a.ttl");
+        file("src/b/c.owl");
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+
+        Assert.assertEquals(a.toURI().toString(), catalog.resolveURI("http://example.com/a"));
+        Assert.assertEquals(file("src/b/c.owl").toURI().toString(), catalog.resolveURI("http://example.com/b/c"));
+        // an explicit extension is kept, and a missing file is resolved without one
+        Assert.assertEquals(a.toURI().toString(), catalog.resolveURI("http://example.com/a.ttl"));
+        Assert.assertEquals(new File(tmp.getRoot(), "src/d").toURI().toString(), catalog.resolveURI("http://example.com/d"));
+        Assert.assertNull(catalog.resolveURI("http://example.org/a"));
+        assertSameAsReference(catalogFile, "http://example.com/a", "http://example.com/b/c", "http://example.com/a.ttl",
+                "http://example.com/d", "http://example.org/a", "http://example.com/x/../a", "http://example.com/b/./c");
+    }
+
+    @Test
+    public void testResolveLongestStartString() throws Exception {
+        var catalogFile = catalog("catalog.xml",
+                rule("http://example.com/", "src/"),
+                rule("http://example.com/lib/", "lib/"));
+        var a = file("lib/a.ttl");
+        file("src/lib/a.ttl");
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+
+        Assert.assertEquals(a.toURI().toString(), catalog.resolveURI("http://example.com/lib/a"));
+        assertSameAsReference(catalogFile, "http://example.com/lib/a", "http://example.com/liba", "http://example.com/lib");
+    }
+
+    @Test
+    public void testResolveNeedsNormalizing() throws Exception {
+        var catalogFile = catalog("catalog.xml", rule("http://example.com/", "src/"));
+        file("src/a b.ttl");
+        file("src/x{y}.ttl");
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+
+        Assert.assertNotNull(catalog.resolveURI("http://example.com/a b"));
+        assertSameAsReference(catalogFile, "http://example.com/a b", "http://example.com/a%20b", "http://example.com/café",
+                "http://example.com/x{y}", "http://example.com/x|y", "urn:publicid:-//example//a");
+    }
+
+    @Test
+    public void testResolveNonRewriteEntries() throws Exception {
+        var catalogFile = catalog("catalog.xml",
+                rule("http://example.com/", "src/"),
+                "\t<uri name=\"http://example.com/special\" uri=\"other/special.ttl\"/>\n",
+                "\t<rewriteSystem systemIdStartString=\"http://example.com/\" rewritePrefix=\"system/\"/>\n");
+        var special = file("other/special.ttl");
+        file("src/special.ttl");
+        file("src/a.ttl");
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+
+        Assert.assertEquals(special.toURI().toString(), catalog.resolveURI("http://example.com/special"));
+        assertSameAsReference(catalogFile, "http://example.com/special", "http://example.com/a", "http://example.org/a");
+    }
+
+    @Test
+    public void testResolveNestedCatalog() throws Exception {
+        var catalogFile = catalog("catalog.xml",
+                rule("http://example.com/", "src/"),
+                "\t<nextCatalog catalog=\"nested/catalog.xml\"/>\n");
+        catalog("nested/catalog.xml", rule("http://nested.org/", "src/"));
+        file("src/a.ttl");
+        var nested = file("nested/src/b.ttl");
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+
+        Assert.assertEquals(nested.toURI().toString(), catalog.resolveURI("http://nested.org/b"));
+        assertSameAsReference(catalogFile, "http://example.com/a", "http://nested.org/b", "http://nested.org/c", "http://example.org/a");
+    }
+
+    @Test
+    public void testDeresolveSameFolder() throws Exception {
+        // like the catalogs generated by owl-save
+        var catalogFile = catalog("catalog.xml",
+                rule("http://", "./"),
+                rule("https://", "./"));
+        var files = new File[12];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = file("example.com/o" + i + ".ttl");
+        }
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+
+        for (int i = 0; i < files.length; i++) {
+            Assert.assertEquals("http://example.com/o" + i, catalog.deresolveURI(files[i].toString()));
+        }
+        Assert.assertEquals(24, catalog.getFileUriMap().size());
+        // the result does not change once the files are walked
+        for (int i = 0; i < files.length; i++) {
+            Assert.assertEquals("http://example.com/o" + i, catalog.deresolveURI(files[i].toString()));
+        }
+        assertSameAsReference(catalogFile, files);
+    }
+
+    @Test
+    public void testDeresolveNestedFolders() throws Exception {
+        var catalogFile = catalog("catalog.xml",
+                rule("http://a.org/", "src/"),
+                rule("http://b.org/", "src/b/"));
+        var x = file("src/b/x.ttl");
+        var y = file("src/y.ttl");
+        var z = file("srcb/z.ttl");
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+        catalog.getFileUriMap();
+
+        Assert.assertEquals("http://b.org/x", catalog.deresolveURI(x.toString()));
+        Assert.assertEquals("http://a.org/y", catalog.deresolveURI(y.toString()));
+        Assert.assertNull(catalog.deresolveURI(z.toString()));
+        assertSameAsReference(catalogFile, x, y, z);
+    }
+
+    @Test
+    public void testFileUriMap() throws Exception {
+        var catalogFile = catalog("catalog.xml",
+                rule("http://a.org/", "src/"),
+                rule("http://b.org/", "src/b/"),
+                rule("http://c.org/c", "c"));
+        file("src/a.ttl");
+        file("src/b/x.owl");
+        file("src/b/y.txt");
+        file("c.ttl");
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+
+        var map = catalog.getFileUriMap();
+        Assert.assertEquals(ReferenceCatalog.create(catalogFile, EXTENSIONS).getFileUriMap(), map);
+        Assert.assertEquals(4, map.size());
+        Assert.assertTrue(map.containsKey("http://a.org/b/x"));
+        Assert.assertTrue(map.containsKey("http://b.org/x"));
+        Assert.assertTrue(map.containsKey("http://c.org/c"));
+        Assert.assertEquals(2, catalog.getFileUriMap(List.of("txt")).size());
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        var catalogFile = catalog("catalog.xml", rule("http://example.com/", "src/"));
+        file("src/a.ttl");
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+
+        Assert.assertEquals(1, catalog.getFileUriMap().size());
+        Assert.assertEquals(new File(tmp.getRoot(), "src/b").toURI().toString(), catalog.resolveURI("http://example.com/b"));
+
+        var b = file("src/b.ttl");
+        // the files and resolutions are cached until refreshed
+        Assert.assertEquals(1, catalog.getFileUriMap().size());
+        Assert.assertEquals(new File(tmp.getRoot(), "src/b").toURI().toString(), catalog.resolveURI("http://example.com/b"));
+
+        catalog.refresh();
+        Assert.assertEquals(2, catalog.getFileUriMap().size());
+        Assert.assertEquals(b.toURI().toString(), catalog.resolveURI("http://example.com/b"));
+
+        Files.delete(b.toPath());
+        file("src/c/d.ttl");
+        catalog.refresh();
+        var map = catalog.getFileUriMap();
+        Assert.assertEquals(2, map.size());
+        Assert.assertTrue(map.containsKey("http://example.com/c/d"));
+        Assert.assertFalse(map.containsKey("http://example.com/b"));
+
+        // a new catalog (reusing the on-disk index) sees the same files
+        Assert.assertEquals(map, OwlCatalog.create(catalogFile, EXTENSIONS).getFileUriMap());
+    }
+
+    @Test
+    public void testIndexIsOptIn() throws Exception {
+        var catalogFile = catalog("catalog.xml", rule("http://example.com/", "src/"));
+        file("src/a.ttl");
+        var index = new File(System.getProperty(CatalogIndex.FOLDER_PROPERTY));
+
+        OwlCatalog.create(catalogFile, EXTENSIONS).getFileUriMap();
+        Assert.assertEquals(1, index.list().length);
+
+        System.clearProperty(CatalogIndex.FOLDER_PROPERTY);
+        Assert.assertNull(CatalogIndex.of(catalogFile, Map.of(), EXTENSIONS));
+        Assert.assertEquals(1, OwlCatalog.create(catalogFile, EXTENSIONS).getFileUriMap().size());
+    }
+
+    private void assertSameAsReference(File catalogFile, String... iris) throws Exception {
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+        var reference = ReferenceCatalog.create(catalogFile, EXTENSIONS);
+        for (String iri : iris) {
+            Assert.assertEquals(iri, reference.resolveURI(iri), catalog.resolveURI(iri));
+        }
+    }
+
+    private void assertSameAsReference(File catalogFile, File... files) throws Exception {
+        var catalog = OwlCatalog.create(catalogFile, EXTENSIONS);
+        var reference = ReferenceCatalog.create(catalogFile, EXTENSIONS);
+        for (File file : files) {
+            Assert.assertEquals(file.toString(), reference.deresolveURI(file.toString()), catalog.deresolveURI(file.toString()));
+        }
+    }
+
+    private static String rule(String startString, String prefix) {
+        return "\t<rewriteURI uriStartString=\"" + startString + "\" rewritePrefix=\"" + prefix + "\"/>\n";
+    }
+
+    private File catalog(String path, String... entries) throws IOException {
+        var content = new StringBuilder();
+        content.append("<?xml version=\"1.0\"?>\n");
+        content.append("<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\" prefer=\"public\">\n");
+        for (String entry : entries) {
+            content.append(entry);
+        }
+        content.append("</catalog>\n");
+        var file = new File(tmp.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private File file(String path) throws IOException {
+        var file = new File(tmp.getRoot(), path);
+        file.getParentFile().mkdirs();
+        if (!file.exists()) {
+            Files.write(file.toPath(), "# empty\n".getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}
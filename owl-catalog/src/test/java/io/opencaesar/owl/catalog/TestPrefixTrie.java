@@ -0,0 +1,65 @@
+package io.opencaesar.owl.catalog;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPrefixTrie {
+
+    @Test
+    public void testEmpty() {
+        var trie = new PrefixTrie<String>();
+        Assert.assertNull(trie.longestPrefix("http://example.com/a"));
+        Assert.assertNull(trie.longestPrefix(""));
+    }
+
+    @Test
+    public void testLongestPrefix() {
+        var trie = new PrefixTrie<String>();
+        trie.put("http://example.com/", "1");
+        trie.put("http://example.com/a/", "2");
+        trie.put("http://example.com/a/b", "3");
+
+        var match = trie.longestPrefix("http://example.com/a/b/c");
+        Assert.assertEquals("http://example.com/a/b", match.prefix);
+        Assert.assertEquals("3", match.value);
+
+        match = trie.longestPrefix("http://example.com/a/c");
+        Assert.assertEquals("http://example.com/a/", match.prefix);
+        Assert.assertEquals("2", match.value);
+
+        // a partial match of a longer prefix falls back to the last complete one
+        match = trie.longestPrefix("http://example.com/a");
+        Assert.assertEquals("http://example.com/", match.prefix);
+        Assert.assertEquals("1", match.value);
+
+        Assert.assertNull(trie.longestPrefix("http://example.org/"));
+        Assert.assertNull(trie.longestPrefix("http://example.com"));
+    }
+
+    @Test
+    public void testExactMatch() {
+        var trie = new PrefixTrie<String>();
+        trie.put("abc", "1");
+        var match = trie.longestPrefix("abc");
+        Assert.assertEquals("abc", match.prefix);
+        Assert.assertEquals("1", match.value);
+    }
+
+    @Test
+    public void testEmptyPrefix() {
+        var trie = new PrefixTrie<String>();
+        trie.put("", "0");
+        trie.put("a", "1");
+        Assert.assertEquals("0", trie.longestPrefix("").value);
+        Assert.assertEquals("0", trie.longestPrefix("b").value);
+        Assert.assertEquals("1", trie.longestPrefix("ab").value);
+    }
+
+    @Test
+    public void testReplace() {
+        var trie = new PrefixTrie<String>();
+        trie.put("a", "1");
+        trie.put("a", "2");
+        Assert.assertEquals("2", trie.longestPrefix("ab").value);
+    }
+}
@@ -11,6 +11,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.opencaesar.owl.catalog.OwlCatalog;
+
 import org.apache.jena.atlas.web.ContentType;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
@@ -134,7 +136,7 @@ public class OwlDiffApp {
 		Map<String, Pair> index = new HashMap<String, Pair>();
 
 		// Identify files in OWL catalog 1
-		OwlCatalog catalog1 = OwlCatalog.create(new File(catalogPath1).toURI());
+		OwlCatalog catalog1 = OwlCatalog.create(new File(catalogPath1), fileExtensions);
 		final URI folder1 = URI.create(catalog1.getBaseUri().toString());
 		final Collection<URI> files1 = catalog1.getFileUris(fileExtensions);
         for(URI file :	files1) {
@@ -143,7 +145,7 @@ public class OwlDiffApp {
         }
 
 		// Identify files in OWL catalog 2
-		OwlCatalog catalog2 = OwlCatalog.create(new File(catalogPath2).toURI());
+		OwlCatalog catalog2 = OwlCatalog.create(new File(catalogPath2), fileExtensions);
 		final URI folder2 = URI.create(catalog2.getBaseUri().toString());
 		final Collection<URI> files2 = catalog2.getFileUris(fileExtensions);
         for(URI file :	files2) {
@@ -27,6 +27,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import io.opencaesar.owl.catalog.OwlCatalog;
+
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.DirectoryProperty;
@@ -141,10 +143,9 @@ public abstract class OwlDocTask extends DefaultTask {
 	@InputFiles
     protected ConfigurableFileCollection getInputFiles() throws IOException, URISyntaxException {
 		if (getInputCatalogPath().isPresent() && getInputCatalogPath().get().exists()) {
-			final var catalogURI = getInputCatalogPath().get().toURI();
-			final var inputCatalog = OwlCatalog.create(catalogURI);
-
 			final var inputFileExtensions = !getInputFileExtensions().get().isEmpty() ? getInputFileExtensions().get() : Arrays.asList(OwlDocApp.DEFAULT_EXTENSIONS);
+			final var inputCatalog = OwlCatalog.create(getInputCatalogPath().get(), inputFileExtensions);
+
 			final var inputFiles = inputCatalog.getFileUriMap(inputFileExtensions).values().stream().map(f-> new File(f)).collect(Collectors.toList());
 
 			return getProject().files(inputFiles);
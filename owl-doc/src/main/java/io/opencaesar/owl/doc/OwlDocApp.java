@@ -45,6 +45,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import io.opencaesar.owl.catalog.OwlCatalog;
+
 import org.apache.jena.graph.Graph;
 import org.apache.jena.ontology.AnnotationProperty;
 import org.apache.jena.ontology.DatatypeProperty;
@@ -258,7 +260,7 @@ public class OwlDocApp {
         LOGGER.info(("Output Folder Path = " + options.outputFolderPath));
         LOGGER.info(("Output Case Sensitive = " + options.outputCaseSensitive));
 	    	    	    
-		OwlCatalog catalog = OwlCatalog.create(new File(options.inputCatalogPath).toURI());
+		OwlCatalog catalog = OwlCatalog.create(new File(options.inputCatalogPath), options.inputFileExtensions);
 		Map<String, URI> fileMap = catalog.getFileUriMap(options.inputFileExtensions);
 		OntDocumentManager mgr = new OntDocumentManager();
 		for (var entry : fileMap.entrySet()) {
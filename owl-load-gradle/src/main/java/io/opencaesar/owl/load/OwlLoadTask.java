@@ -13,6 +13,7 @@ import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputDirectory;
 import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.work.Incremental;
@@ -116,6 +117,69 @@ public abstract class OwlLoadTask extends DefaultTask {
     @Input
     public abstract Property<Boolean> getLoadToDefaultGraph();
 
+    /**
+     * The max number of concurrent uploads, which is adapted to the endpoint's latency and errors (Optional, default is 16).
+     *
+     * @return Integer Property
+     */
+    @Optional
+    @Input
+    public abstract Property<Integer> getParallelism();
+
+    /**
+     * The max number of times a failed upload is retried (Optional, default is 3).
+     *
+     * @return Integer Property
+     */
+    @Optional
+    @Input
+    public abstract Property<Integer> getRetries();
+
+    /**
+     * The format (thrift or nt) in which to upload locally parsed files with gzip encoding (Optional, default is to upload files as is).
+     *
+     * @return String Property
+     */
+    @Optional
+    @Input
+    public abstract Property<String> getUploadFormat();
+
+    /**
+     * The folder of local snapshots of the loaded files, used to update the default graph with triple-level deltas (Optional).
+     *
+     * @return File Property
+     */
+    @Optional
+    @Internal
+    public abstract Property<File> getSnapshotPath();
+
+    /**
+     * The path to a JSON (or CSV if its extension is csv) report of the metrics of every upload (Optional).
+     *
+     * @return File Property
+     */
+    @Optional
+    @Internal
+    public abstract Property<File> getReportPath();
+
+    /**
+     * Whether to upload changed graphs to staging graphs first, then swap them into place with a single update (Optional, default is false).
+     *
+     * @return Boolean Property
+     */
+    @Optional
+    @Input
+    public abstract Property<Boolean> getStaged();
+
+    /**
+     * The size (in MB) beyond which N-Triples files are split into chunks of that size that are uploaded concurrently (Optional, default is not to split files).
+     *
+     * @return Integer Property
+     */
+    @Optional
+    @Input
+    public abstract Property<Integer> getChunkSize();
+
     /**
      * Whether to load the dataset incrementally
      * 
@@ -192,6 +256,33 @@ public abstract class OwlLoadTask extends DefaultTask {
         if (getLoadToDefaultGraph().isPresent() && getLoadToDefaultGraph().get()) {
             args.add("-df");
         }
+        if (getParallelism().isPresent()) {
+            args.add("-pl");
+            args.add(getParallelism().get().toString());
+        }
+        if (getRetries().isPresent()) {
+            args.add("-r");
+            args.add(getRetries().get().toString());
+        }
+        if (getUploadFormat().isPresent()) {
+            args.add("-uf");
+            args.add(getUploadFormat().get());
+        }
+        if (getSnapshotPath().isPresent()) {
+            args.add("-sp");
+            args.add(getSnapshotPath().get().getAbsolutePath());
+        }
+        if (getReportPath().isPresent()) {
+            args.add("-rp");
+            args.add(getReportPath().get().getAbsolutePath());
+        }
+        if (getStaged().isPresent() && getStaged().get()) {
+            args.add("-st");
+        }
+        if (getChunkSize().isPresent()) {
+            args.add("-cs");
+            args.add(getChunkSize().get().toString());
+        }
         if (getDebug().isPresent() && getDebug().get()) {
             args.add("-d");
         }
@@ -0,0 +1,288 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.jena.fuseki.main.FusekiServer;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.system.Txn;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of {@link OwlLoadApp} loading a synthetic catalog to an embedded in-memory
+ * Fuseki endpoint (on the loopback interface, so they run offline), reporting the throughput
+ * (loads/s and triples/s) and the latency percentiles of the loads.
+ *
+ * The size of the catalog and the options of the loads (e.g., to compare loader strategies)
+ * are controlled by the benchmark parameters (the options are passed with jmhOptions, separated by
+ * commas for several strategies), e.g.:
+ * <pre>./gradlew owl-load:jmh -PjmhArgs="-p ontologyCount=500 named" -PjmhOptions="-uf thrift -st"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OwlLoadBenchmark {
+
+    /**
+     * Number of ontologies
+     */
+    @Param("100")
+    public int ontologyCount;
+
+    /**
+     * Number of triples of every ontology
+     */
+    @Param("1000")
+    public int triplesPerOntology;
+
+    /**
+     * Additional OwlLoad options (separated by spaces)
+     */
+    @Param("")
+    public String options;
+
+    private File folder;
+
+    private File catalog;
+
+    private FusekiServer server;
+
+    private DatasetGraph dataset;
+
+    private long namedTriples;
+
+    private long defaultTriples;
+
+    private long incrementalTriples;
+
+    private int revision;
+
+    /**
+     * Creates a new OwlLoadBenchmark object
+     */
+    public OwlLoadBenchmark() {
+    }
+
+    /**
+     * Generates the synthetic catalog, starts the embedded endpoint and measures the triples of the loads.
+     *
+     * @throws Exception error
+     */
+    @Setup
+    public void setup() throws Exception {
+        folder = Files.createTempDirectory("owl-load-jmh").toFile();
+        catalog = new SyntheticCatalogGenerator()
+                .ontologyCount(ontologyCount)
+                .triplesPerOntology(triplesPerOntology)
+                .generate(folder);
+
+        Logger.getRootLogger().setLevel(Level.WARN);
+        dataset = DatasetGraphFactory.createTxnMem();
+        server = FusekiServer.create()
+                .loopback(true)
+                .port(0)
+                .add("/ds", dataset)
+                .build()
+                .start();
+
+        try {
+            load("-df");
+            defaultTriples = Txn.calculateRead(dataset, () -> dataset.getDefaultGraph().size());
+            clear();
+            load();
+            namedTriples = Txn.calculateRead(dataset, () -> {
+                long triples = 0;
+                for (int i = 0; i < ontologyCount; i++) {
+                    triples += dataset.getGraph(NodeFactory.createURI(SyntheticCatalogGenerator.getIri(i))).size();
+                }
+                return triples;
+            });
+            incrementalTriples = namedTriples / ontologyCount;
+        } catch (Exception | Error e) {
+            // the teardown does not run when the setup fails (and a running server keeps the JVM alive)
+            try {
+                tearDown();
+            } catch (Exception suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the embedded endpoint and deletes the synthetic catalog.
+     *
+     * @throws Exception error
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        server.stop();
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * The number of loaded triples (reported as triples/s in throughput mode).
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Triples {
+        /**
+         * The number of loaded triples
+         */
+        public long triples;
+
+        /**
+         * Creates a new Triples object
+         */
+        public Triples() {
+        }
+    }
+
+    /**
+     * An empty endpoint for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class EmptyEndpoint {
+        /**
+         * Creates a new EmptyEndpoint object
+         */
+        public EmptyEndpoint() {
+        }
+
+        /**
+         * Clears the endpoint
+         *
+         * @param benchmark the benchmark state
+         */
+        @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+        public void setup(OwlLoadBenchmark benchmark) {
+            benchmark.clear();
+        }
+    }
+
+    /**
+     * A loaded endpoint and a modified ontology for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class ModifiedOntology {
+        /**
+         * Creates a new ModifiedOntology object
+         */
+        public ModifiedOntology() {
+        }
+
+        /**
+         * Modifies an ontology (a different one every time)
+         *
+         * @param benchmark the benchmark state
+         * @throws Exception error
+         */
+        @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+        public void setup(OwlLoadBenchmark benchmark) throws Exception {
+            int revision = ++benchmark.revision;
+            new SyntheticCatalogGenerator()
+                    .ontologyCount(benchmark.ontologyCount)
+                    .triplesPerOntology(benchmark.triplesPerOntology)
+                    .modify(benchmark.folder, revision % benchmark.ontologyCount, revision);
+        }
+    }
+
+    /**
+     * Loads all the ontologies to named graphs of an empty endpoint.
+     *
+     * @param endpoint an empty endpoint
+     * @param counter the loaded triples counter
+     * @throws Exception error
+     */
+    @Benchmark
+    public void named(EmptyEndpoint endpoint, Triples counter) throws Exception {
+        load();
+        counter.triples += namedTriples;
+    }
+
+    /**
+     * Loads all the ontologies to the default graph of an empty endpoint.
+     *
+     * @param endpoint an empty endpoint
+     * @param counter the loaded triples counter
+     * @throws Exception error
+     */
+    @Benchmark
+    public void defaultGraph(EmptyEndpoint endpoint, Triples counter) throws Exception {
+        load("-df");
+        counter.triples += defaultTriples;
+    }
+
+    /**
+     * Loads one modified ontology to its named graph (the others are skipped as unchanged).
+     *
+     * @param ontology a modified ontology
+     * @param counter the loaded triples counter
+     * @throws Exception error
+     */
+    @Benchmark
+    public void incremental(ModifiedOntology ontology, Triples counter) throws Exception {
+        load();
+        counter.triples += incrementalTriples;
+    }
+
+    private void clear() {
+        Txn.executeWrite(dataset, () -> dataset.clear());
+    }
+
+    private void load(String... extraArgs) throws Exception {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "-e", server.datasetURL("/ds"),
+                "-c", catalog.getAbsolutePath(),
+                "-ip", new File(folder, "iris.txt").getAbsolutePath()));
+        args.addAll(Arrays.asList(extraArgs));
+        if (!options.isBlank()) {
+            args.addAll(Arrays.asList(options.trim().split("\\s+")));
+        }
+        OwlLoadApp.main(args.toArray(new String[0]));
+    }
+}
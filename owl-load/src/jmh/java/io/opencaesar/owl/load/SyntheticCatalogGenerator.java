@@ -0,0 +1,145 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a synthetic catalog of Turtle ontologies (and a file with their IRIs) with a configurable size.
+ *
+ * Every ontology imports the previous one and has classes (in a chain of subclasses) and individuals
+ * (typed by the classes, with a data property value each) that add up to the configured number of triples.
+ */
+public class SyntheticCatalogGenerator {
+
+    /**
+     * The namespace of the generated ontologies
+     */
+    public static final String BASE_IRI = "http://example.com/synthetic/";
+
+    private int ontologyCount = 10;
+
+    private int triplesPerOntology = 1000;
+
+    /**
+     * Creates a new SyntheticCatalogGenerator object
+     */
+    public SyntheticCatalogGenerator() {
+    }
+
+    /**
+     * Sets the number of ontologies
+     *
+     * @param ontologyCount the number of ontologies
+     * @return this generator
+     */
+    public SyntheticCatalogGenerator ontologyCount(int ontologyCount) {
+        this.ontologyCount = ontologyCount;
+        return this;
+    }
+
+    /**
+     * Sets the (approximate) number of triples of every ontology
+     *
+     * @param triplesPerOntology the number of triples of every ontology
+     * @return this generator
+     */
+    public SyntheticCatalogGenerator triplesPerOntology(int triplesPerOntology) {
+        this.triplesPerOntology = triplesPerOntology;
+        return this;
+    }
+
+    /**
+     * Gets the IRI of the ontology with the given index
+     *
+     * @param index the index of the ontology
+     * @return the IRI of the ontology
+     */
+    public static String getIri(int index) {
+        return BASE_IRI + "o" + index;
+    }
+
+    /**
+     * Generates the catalog (catalog.xml), the ontologies (in an ontologies sub folder) and
+     * a file with the IRIs of the ontologies (iris.txt) in the given folder
+     *
+     * @param folder the folder
+     * @return the catalog file
+     * @throws IOException error
+     */
+    public File generate(File folder) throws IOException {
+        File ontologies = new File(folder, "ontologies");
+        ontologies.mkdirs();
+        List<String> iris = new ArrayList<>();
+        for (int i = 0; i < ontologyCount; i++) {
+            iris.add(getIri(i));
+            write(new File(ontologies, "o" + i + ".ttl"), i, 0);
+        }
+        try (var writer = new PrintWriter(new File(folder, "iris.txt"), StandardCharsets.UTF_8)) {
+            iris.forEach(writer::println);
+        }
+        File catalog = new File(folder, "catalog.xml");
+        try (var writer = new PrintWriter(catalog, StandardCharsets.UTF_8)) {
+            writer.println("<?xml version='1.0'?>");
+            writer.println("<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\" prefer=\"public\">");
+            writer.println("\t<rewriteURI uriStartString=\"" + BASE_IRI + "\" rewritePrefix=\"./ontologies/\" />");
+            writer.println("</catalog>");
+        }
+        return catalog;
+    }
+
+    /**
+     * Modifies the ontology with the given index in the given folder (by changing its data property values)
+     *
+     * @param folder the folder (where the catalog was generated)
+     * @param index the index of the ontology
+     * @param revision the revision of the ontology (used in its data property values)
+     * @throws IOException error
+     */
+    public void modify(File folder, int index, int revision) throws IOException {
+        write(new File(new File(folder, "ontologies"), "o" + index + ".ttl"), index, revision);
+    }
+
+    private void write(File file, int index, int revision) throws IOException {
+        String iri = getIri(index);
+        try (var writer = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            writer.println("@prefix owl: <http://www.w3.org/2002/07/owl#> .");
+            writer.println("@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .");
+            writer.println("@prefix : <" + iri + "#> .");
+            writer.println();
+            writer.print("<" + iri + "> a owl:Ontology");
+            if (index > 0) {
+                writer.print(" ;\n\towl:imports <" + getIri(index - 1) + ">");
+            }
+            writer.println(" .");
+            writer.println(":value a owl:DatatypeProperty .");
+            int classCount = Math.max(1, triplesPerOntology / 10);
+            for (int c = 0; c < classCount; c++) {
+                writer.println(":C" + c + " a owl:Class" + (c > 0 ? " ; rdfs:subClassOf :C" + (c - 1) : "") + " .");
+            }
+            int individualCount = Math.max(0, (triplesPerOntology - 2 * classCount) / 2);
+            for (int n = 0; n < individualCount; n++) {
+                writer.println(":i" + n + " a :C" + (n % classCount) + " ; :value \"" + revision + "-" + n + "\" .");
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.jena.atlas.web.HttpException;
+import org.apache.jena.http.HttpLib;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+
+/**
+ * An uploader of locally parsed graphs to the Graph Store Protocol service of an endpoint, which
+ * encodes them in a compact format and compresses them with gzip content-encoding, so the server
+ * does not have to parse verbose syntaxes (like RDF/XML) and fewer bytes go on the wire. It also
+ * uploads chunks of N-Triples files (see {@link FileChunker}) as is, with gzip content-encoding.
+ *
+ * The bodies are compressed by a writer thread while they are sent (through a few buffers), so a graph
+ * is not held in memory in compressed form, however many uploads are in flight.
+ */
+class CompressedUploader {
+
+    /*
+     * The size of the buffers between the writer of a body and the request
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * The number of buffers between the writer of a body and the request
+     */
+    private static final int BUFFER_COUNT = 4;
+
+    /*
+     * The end of a body
+     */
+    private static final byte[] END = new byte[0];
+
+    /*
+     * The threads that write (and compress) the bodies
+     */
+    private static final ExecutorService writers = Executors.newCachedThreadPool(r -> {
+        var thread = new Thread(r, "owl-load-body-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The supported upload formats
+     */
+    enum Format {
+        THRIFT(RDFFormat.RDF_THRIFT),
+        NT(RDFFormat.NTRIPLES);
+
+        final RDFFormat triples;
+
+        Format(RDFFormat triples) {
+            this.triples = triples;
+        }
+    }
+
+    private final HttpClient client;
+
+    private final String gspURL;
+
+    private final Format format;
+
+    /**
+     * Creates a new CompressedUploader object
+     *
+     * @param client the http client to use
+     * @param gspURL the URL of the Graph Store Protocol service of the dataset (as used by the connections)
+     * @param format the upload format
+     */
+    CompressedUploader(HttpClient client, String gspURL, Format format) {
+        this.client = client;
+        this.gspURL = gspURL;
+        this.format = format;
+    }
+
+    /**
+     * Replaces the given named graph with the given graph
+     *
+     * @param iri the IRI of the named graph
+     * @param graph the graph
+     * @return the HTTP status
+     * @throws Exception when the upload fails
+     */
+    int put(String iri, Graph graph) throws Exception {
+        return send("PUT", getGraphURL(iri), format.triples.getLang(),
+                out -> RDFDataMgr.write(out, graph, format.triples));
+    }
+
+    /**
+     * Adds the given graph to the given named graph
+     *
+     * @param iri the IRI of the named graph
+     * @param graph the graph
+     * @return the HTTP status
+     * @throws Exception when the upload fails
+     */
+    int post(String iri, Graph graph) throws Exception {
+        return send("POST", getGraphURL(iri), format.triples.getLang(),
+                out -> RDFDataMgr.write(out, graph, format.triples));
+    }
+
+    /**
+     * Adds the given graph to the default graph
+     *
+     * @param graph the graph
+     * @return the HTTP status
+     * @throws Exception when the upload fails
+     */
+    int postToDefault(Graph graph) throws Exception {
+        return send("POST", getGraphURL(null), format.triples.getLang(),
+                out -> RDFDataMgr.write(out, graph, format.triples));
+    }
+
+    /**
+     * Replaces the given named graph with the given chunk of an N-Triples file
+     *
+     * @param iri the IRI of the named graph
+     * @param file the N-Triples file
+     * @param chunk the chunk of the file
+     * @return the HTTP status
+     * @throws Exception when the upload fails
+     */
+    int put(String iri, File file, FileChunker.Chunk chunk) throws Exception {
+        return send("PUT", getGraphURL(iri), Lang.NTRIPLES,
+                out -> copy(file, chunk, out));
+    }
+
+    /**
+     * Adds the given chunk of an N-Triples file to the given named graph
+     *
+     * @param iri the IRI of the named graph
+     * @param file the N-Triples file
+     * @param chunk the chunk of the file
+     * @return the HTTP status
+     * @throws Exception when the upload fails
+     */
+    int post(String iri, File file, FileChunker.Chunk chunk) throws Exception {
+        return send("POST", getGraphURL(iri), Lang.NTRIPLES,
+                out -> copy(file, chunk, out));
+    }
+
+    /**
+     * Adds the given chunk of an N-Triples file to the default graph
+     *
+     * @param file the N-Triples file
+     * @param chunk the chunk of the file
+     * @return the HTTP status
+     * @throws Exception when the upload fails
+     */
+    int postToDefault(File file, FileChunker.Chunk chunk) throws Exception {
+        return send("POST", getGraphURL(null), Lang.NTRIPLES,
+                out -> copy(file, chunk, out));
+    }
+
+    private static void copy(File file, FileChunker.Chunk chunk, OutputStream out) {
+        try {
+            FileChunker.copy(file, chunk, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Gets the URL of the given named graph (or the default graph) like the Graph Store Protocol requests
+     * of the connections
+     */
+    private String getGraphURL(String iri) {
+        return HttpLib.requestURL(gspURL, (iri != null) ? "graph=" + HttpLib.urlEncodeQueryString(iri) : "default");
+    }
+
+    private int send(String method, String url, Lang lang, Consumer<OutputStream> writer) throws IOException, InterruptedException {
+        // the body may be requested again (e.g., after an authentication challenge), so every one is closed at the end
+        var bodies = new ArrayList<Body>();
+        var request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", lang.getHeaderString())
+                .header("Content-Encoding", "gzip")
+                .method(method, HttpRequest.BodyPublishers.ofInputStream(() -> {
+                    var body = new Body(writer);
+                    synchronized (bodies) {
+                        bodies.add(body);
+                    }
+                    return body;
+                }))
+                .build();
+        try {
+            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new HttpException(response.statusCode(), method + " " + url + " returned " + response.statusCode(), response.body());
+            }
+            return response.statusCode();
+        } finally {
+            synchronized (bodies) {
+                for (Body body : bodies) {
+                    body.close();
+                }
+            }
+        }
+    }
+
+    /*
+     * A body that a writer thread compresses while it is read, through a bounded queue of buffers
+     */
+    private static final class Body extends InputStream {
+
+        private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+
+        private volatile boolean closed;
+
+        private volatile Exception error;
+
+        private byte[] buffer = END;
+
+        private int position;
+
+        private boolean ended;
+
+        Body(Consumer<OutputStream> writer) {
+            writers.execute(() -> {
+                try (var out = new GZIPOutputStream(new BufferedOutputStream(new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[] { (byte) b }, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        if (len > 0) {
+                            offer(Arrays.copyOfRange(b, off, off + len));
+                        }
+                    }
+                }, BUFFER_SIZE), BUFFER_SIZE)) {
+                    writer.accept(out);
+                } catch (Exception e) {
+                    error = e;
+                } finally {
+                    try {
+                        offer(END);
+                    } catch (IOException e) {
+                        // the body is closed
+                    }
+                }
+            });
+        }
+
+        private void offer(byte[] bytes) throws IOException {
+            try {
+                while (!buffers.offer(bytes, 100, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        throw new IOException("The request body is closed");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (ended) {
+                return false;
+            }
+            if (position == buffer.length) {
+                try {
+                    buffer = buffers.take();
+                    position = 0;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+                if (buffer == END) {
+                    ended = true;
+                    if (error != null) {
+                        throw new IOException("Error writing the request body: " + error.getMessage(), error);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? buffer[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            closed = true; // stops the writer (if it is still writing)
+            buffers.clear();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import org.apache.log4j.Logger;
+
+/**
+ * An AIMD (additive increase, multiplicative decrease) limiter of the number of in-flight
+ * requests to an endpoint. The limit grows by one for every limit's worth of fast successful
+ * requests, and shrinks when requests fail with overload errors (by half) or when their recent
+ * latency rises well above their long-term latency (by a tenth). Latencies are normalized by
+ * the weight (e.g., size) of the requests so that requests of different sizes are comparable.
+ */
+class ConcurrencyLimiter {
+
+    private final static Logger LOGGER = Logger.getLogger(ConcurrencyLimiter.class);
+
+    /*
+     * The weight added to every request to account for its fixed cost
+     */
+    private static final long OVERHEAD_WEIGHT = 64 * 1024;
+
+    /*
+     * The smoothing factors of the short-term and long-term latencies
+     */
+    private static final double SHORT_ALPHA = 0.2, LONG_ALPHA = 0.02;
+
+    /*
+     * The ratio of short-term to long-term latency beyond which the limit is decreased
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /*
+     * The factors by which the limit is decreased
+     */
+    private static final double OVERLOAD_DECREASE = 0.5, LATENCY_DECREASE = 0.9;
+
+    private final int maxLimit;
+
+    private double limit;
+
+    private int inFlight;
+
+    private double shortLatency = Double.NaN, longLatency = Double.NaN;
+
+    /**
+     * Creates a new ConcurrencyLimiter object
+     *
+     * @param initialLimit the initial limit
+     * @param maxLimit the max limit
+     */
+    ConcurrencyLimiter(int initialLimit, int maxLimit) {
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(1, Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * Waits until the number of in-flight requests is below the limit and counts a new one
+     *
+     * @throws InterruptedException when interrupted while waiting
+     */
+    synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Counts the end of an in-flight request and adjusts the limit based on its outcome
+     *
+     * @param latencyNanos the latency of the request
+     * @param weight the weight of the request
+     * @param overloaded whether the request failed with an overload error
+     */
+    synchronized void release(long latencyNanos, long weight, boolean overloaded) {
+        inFlight--;
+        int oldLimit = (int) limit;
+        if (overloaded) {
+            limit = Math.max(1, limit * OVERLOAD_DECREASE);
+        } else {
+            double latency = (double) latencyNanos / (Math.max(0, weight) + OVERHEAD_WEIGHT);
+            shortLatency = Double.isNaN(shortLatency) ? latency : shortLatency + SHORT_ALPHA * (latency - shortLatency);
+            longLatency = Double.isNaN(longLatency) ? latency : longLatency + LONG_ALPHA * (latency - longLatency);
+            if (shortLatency > longLatency * LATENCY_TOLERANCE) {
+                limit = Math.max(1, limit * LATENCY_DECREASE);
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+        if ((int) limit != oldLimit) {
+            LOGGER.debug("Concurrency limit changed to " + (int) limit);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Gets the current limit
+     *
+     * @return the current limit
+     */
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+}
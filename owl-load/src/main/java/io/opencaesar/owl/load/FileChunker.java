@@ -0,0 +1,123 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+
+/**
+ * A splitter of N-Triples files into chunks of whole lines (of about a given size) that can be
+ * uploaded separately, so a large graph can be loaded over many concurrent requests. Files with
+ * blank node labels are not split, since a label that is shared by two chunks would denote two
+ * different blank nodes once the chunks are uploaded separately.
+ */
+class FileChunker {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * A chunk of a file (a range of whole lines)
+     */
+    static class Chunk {
+        final long start;
+        final long end;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long getSize() {
+            return end - start;
+        }
+    }
+
+    /**
+     * Whether the given file has a line-based format that can be split into chunks
+     *
+     * @param file the file
+     * @return true if the file can be split
+     */
+    static boolean isSplittable(File file) {
+        return RDFLanguages.filenameToLang(file.getName()) == Lang.NTRIPLES;
+    }
+
+    /**
+     * Splits the given file into chunks of whole lines, each ending at the first line end after the given size
+     *
+     * @param file the file
+     * @param chunkSize the min size of a chunk (except the last one)
+     * @return the chunks, or null if the file has blank node labels
+     * @throws IOException when the file cannot be read
+     */
+    static List<Chunk> split(File file, long chunkSize) throws IOException {
+        var chunks = new ArrayList<Chunk>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = 0, start = 0;
+            byte previous = 0;
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    position++;
+                    if (b == ':' && previous == '_') {
+                        // a (possible) blank node label
+                        return null;
+                    }
+                    if (b == '\n' && position - start >= chunkSize) {
+                        chunks.add(new Chunk(start, position));
+                        start = position;
+                    }
+                    previous = b;
+                }
+                buffer.clear();
+            }
+            if (position > start) {
+                chunks.add(new Chunk(start, position));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Copies the given chunk of the given file to the given output stream
+     *
+     * @param file the file
+     * @param chunk the chunk
+     * @param out the output stream
+     * @throws IOException when the chunk cannot be copied
+     */
+    static void copy(File file, Chunk chunk, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var target = Channels.newChannel(out);
+            for (long position = chunk.start; position < chunk.end; ) {
+                position += channel.transferTo(position, chunk.end - position, target);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import io.opencaesar.owl.catalog.OwlCatalog;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.vocabulary.OWL2;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.log4j.Logger;
+
+/**
+ * A scanner of the import closure of a set of root ontologies that finds the ontology IRIs of each
+ * file and their imports (i.e., its ontology header), and follows the imports through a map of the
+ * catalog's files. The files of each level of imports are scanned concurrently.
+ *
+ * Each file is streamed in full (without building a model), since an import may be stated anywhere in it.
+ */
+class ImportClosureScanner {
+
+    private final static Logger LOGGER = Logger.getLogger(ImportClosureScanner.class);
+
+    private final Map<String, URI> fileMap;
+
+    /**
+     * Creates a new ImportClosureScanner object
+     *
+     * @param fileMap a map from IRI to file URI (see {@link OwlCatalog#getFileUriMap()})
+     */
+    ImportClosureScanner(Map<String, URI> fileMap) {
+        this.fileMap = fileMap;
+    }
+
+    /**
+     * Scans the import closure of the given root IRIs
+     *
+     * @param roots the root IRIs
+     * @return the IRIs of the ontologies in the import closure
+     */
+    Set<String> scan(Collection<String> roots) {
+        for (String root : roots) {
+            if (!fileMap.containsKey(root)) {
+                LOGGER.error("Could not resolve iri <"+root+"> using the catalog");
+                throw new RuntimeException("Could not resolve iri <"+root+"> using the catalog");
+            }
+        }
+        Set<String> ontologies = ConcurrentHashMap.newKeySet();
+        Set<String> visited = new HashSet<>(roots);
+        List<String> frontier = List.copyOf(visited);
+        while (!frontier.isEmpty()) {
+            var imports = frontier.parallelStream()
+                    .flatMap(iri -> scan(iri, ontologies).stream())
+                    .collect(Collectors.toSet());
+            frontier = imports.stream()
+                    .filter(iri -> visited.add(iri))
+                    .filter(iri -> {
+                        if (!fileMap.containsKey(iri)) {
+                            LOGGER.warn("Could not resolve imported iri <"+iri+"> using the catalog");
+                            return false;
+                        }
+                        return true;
+                    })
+                    .collect(Collectors.toList());
+        }
+        return ontologies;
+    }
+
+    /*
+     * Scans the file of the given IRI, adds its ontology IRIs, and returns their imports
+     */
+    private Set<String> scan(String iri, Set<String> ontologies) {
+        String file = fileMap.get(iri).toString();
+        var header = new HeaderScanner();
+        try {
+            RDFParser.source(file).base(iri).parse(header);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error reading ontology with iri <"+iri+">");
+            throw e;
+        }
+        ontologies.addAll(header.ontologies);
+        return header.imports;
+    }
+
+    /*
+     * Collects ontology IRIs and imports
+     */
+    private static class HeaderScanner extends StreamRDFBase {
+        final Set<String> ontologies = new HashSet<>();
+        final Set<String> imports = new HashSet<>();
+
+        @Override
+        public void triple(Triple triple) {
+            Node s = triple.getSubject();
+            Node p = triple.getPredicate();
+            Node o = triple.getObject();
+            if (p.equals(RDF.type.asNode()) && o.equals(OWL2.Ontology.asNode()) && s.isURI()) {
+                ontologies.add(s.getURI());
+            } else if (p.equals(OWL2.imports.asNode()) && o.isURI()) {
+                imports.add(o.getURI());
+            }
+        }
+    }
+}
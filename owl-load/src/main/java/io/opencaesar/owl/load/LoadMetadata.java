@@ -0,0 +1,349 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.opencaesar.owl.catalog.OwlCatalog;
+
+/**
+ * Metadata about the graphs loaded to an endpoint, namely the content digest of the file that each
+ * graph was loaded from, and the version of the loaded dataset (a digest of all those digests) that
+ * can be compared in constant time.
+ *
+ * The metadata is kept out of the dataset (where it would show up in queries of a union default graph),
+ * in a local state file next to the catalog, named after the endpoint URL. The file is rewritten
+ * (atomically) whenever the metadata changes.
+ */
+class LoadMetadata {
+
+    /**
+     * The name of the folder of the state files (next to the catalog)
+     */
+    static final String FOLDER = ".owl-load";
+
+    /**
+     * The kind of the digest of a graph loaded to its own named graph
+     */
+    static final String DIGEST = "digest";
+
+    /**
+     * The kind of the digest of a graph loaded to the default graph
+     */
+    static final String DEFAULT_DIGEST = "defaultDigest";
+
+    /**
+     * The kind of the version of the dataset loaded to named graphs
+     */
+    static final String VERSION = "version";
+
+    /**
+     * The kind of the version of the dataset loaded to the default graph
+     */
+    static final String DEFAULT_VERSION = "defaultVersion";
+
+    /**
+     * The IRI prefix of the graphs where graphs are staged before being moved into place
+     */
+    static final String STAGING_IRI = "http://opencaesar.io/owl-load/staging";
+
+    /**
+     * The IRI prefix of the graphs added briefly to check whether the default graph is the union of the named graphs
+     */
+    static final String PROBE_IRI = "http://opencaesar.io/owl-load/probe";
+
+    /**
+     * The IRI of the graph where older versions recorded the metadata on the endpoint
+     */
+    static final String LEGACY_GRAPH_IRI = "http://opencaesar.io/owl-load/metadata";
+
+    private final File file;
+
+    private final String endpointURL;
+
+    private final Map<String, Map<String, String>> digests = new HashMap<>();
+
+    private final Map<String, String> versions = new HashMap<>();
+
+    private LoadMetadata(File file, String endpointURL) {
+        this.file = file;
+        this.endpointURL = endpointURL;
+    }
+
+    /**
+     * Loads the metadata of the given endpoint (which is empty if none was saved)
+     *
+     * @param catalogFile the catalog file (next to which the state file is kept)
+     * @param endpointURL the URL of the endpoint
+     * @return the metadata
+     */
+    static LoadMetadata load(File catalogFile, String endpointURL) {
+        File folder = new File(catalogFile.getAbsoluteFile().getParentFile(), FOLDER);
+        var metadata = new LoadMetadata(new File(folder, sha256(endpointURL) + ".state"), endpointURL);
+        if (metadata.file.isFile()) {
+            try (BufferedReader reader = Files.newBufferedReader(metadata.file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields.length == 2) {
+                        metadata.versions.put(fields[0], fields[1]);
+                    } else if (fields.length == 3) {
+                        metadata.digests.computeIfAbsent(fields[0], k -> new HashMap<>()).put(fields[1], fields[2]);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading " + metadata.file, e);
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Whether the metadata was saved before
+     *
+     * @return true if the state file exists
+     */
+    boolean exists() {
+        return file.isFile();
+    }
+
+    /**
+     * Gets the state file
+     *
+     * @return the state file
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the IRI of the staging graph of the given graph
+     *
+     * @param iri the IRI of a named graph, or null for the default graph
+     * @return the IRI of the staging graph
+     */
+    static String getStagingIri(String iri) {
+        return (iri != null) ? STAGING_IRI + "?graph=" + URLEncoder.encode(iri, StandardCharsets.UTF_8) : STAGING_IRI + "?default";
+    }
+
+    /**
+     * Computes the content digests of the files of the given graph IRIs (concurrently)
+     *
+     * @param catalog the catalog to resolve graph IRIs to files
+     * @param iris the graph IRIs
+     * @return a map from graph IRI to digest
+     */
+    static Map<String, String> computeDigests(OwlCatalog catalog, Collection<String> iris) {
+        var digests = new ConcurrentHashMap<String, String>();
+        iris.parallelStream().forEach(iri -> {
+            File file = new File(URI.create(catalog.resolveURI(iri)));
+            digests.put(iri, digest(file));
+        });
+        return digests;
+    }
+
+    /**
+     * Gets the recorded digests
+     *
+     * @param kind the kind of digests
+     * @return a map from graph IRI to digest
+     */
+    synchronized Map<String, String> getDigests(String kind) {
+        return new HashMap<>(digests.getOrDefault(kind, Map.of()));
+    }
+
+    /**
+     * Gets the graph IRIs whose local digest differs from the recorded one, or that are
+     * recorded but no longer local
+     *
+     * @param local the local digests
+     * @param recorded the recorded digests
+     * @return the changed graph IRIs
+     */
+    static Set<String> getChangedIris(Map<String, String> local, Map<String, String> recorded) {
+        var changed = new HashSet<String>();
+        local.forEach((iri, digest) -> {
+            if (!digest.equals(recorded.get(iri))) {
+                changed.add(iri);
+            }
+        });
+        recorded.keySet().forEach(iri -> {
+            if (!local.containsKey(iri)) {
+                changed.add(iri);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Records the digests of the given (re)loaded graphs and removes those of the unloaded ones
+     *
+     * @param kind the kind of digests
+     * @param loaded a map from loaded graph IRI to digest
+     * @param unloaded the unloaded graph IRIs
+     */
+    synchronized void updateDigests(String kind, Map<String, String> loaded, Collection<String> unloaded) {
+        if (loaded.isEmpty() && unloaded.isEmpty()) {
+            return;
+        }
+        var map = digests.computeIfAbsent(kind, k -> new HashMap<>());
+        unloaded.forEach(map::remove);
+        map.putAll(loaded);
+        save();
+    }
+
+    /**
+     * Removes all recorded digests
+     *
+     * @param kind the kind of digests
+     */
+    synchronized void clearDigests(String kind) {
+        if (digests.remove(kind) != null) {
+            save();
+        }
+    }
+
+    /**
+     * Computes the version of a dataset from the digests of its graphs
+     *
+     * @param digests a map from graph IRI to digest
+     * @return the version
+     */
+    static String computeVersion(Map<String, String> digests) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            new TreeMap<>(digests).forEach((iri, d) -> digest.update((iri + " " + d + "\n").getBytes(StandardCharsets.UTF_8)));
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Gets the recorded version
+     *
+     * @param kind the kind of version
+     * @return the version, or null if none is recorded
+     */
+    synchronized String getVersion(String kind) {
+        return versions.get(kind);
+    }
+
+    /**
+     * Records the version
+     *
+     * @param kind the kind of version
+     * @param version the version, or null to remove the recorded one
+     */
+    synchronized void setVersion(String kind, String version) {
+        boolean changed = (version != null) ? !version.equals(versions.put(kind, version)) : versions.remove(kind) != null;
+        if (changed) {
+            save();
+        }
+    }
+
+    /*
+     * Writes the state file (replacing it atomically)
+     */
+    private void save() {
+        try {
+            file.getParentFile().mkdirs();
+            Path temp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write("# OwlLoad state of " + endpointURL + "\n");
+                    for (var e : new TreeMap<>(versions).entrySet()) {
+                        writer.write(e.getKey() + "\t" + e.getValue() + "\n");
+                    }
+                    for (var kind : new TreeMap<>(digests).entrySet()) {
+                        for (var e : new TreeMap<>(kind.getValue()).entrySet()) {
+                            writer.write(kind.getKey() + "\t" + e.getKey() + "\t" + e.getValue() + "\n");
+                        }
+                    }
+                }
+                try {
+                    Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing " + file, e);
+        }
+    }
+
+    /**
+     * Computes the SHA-256 digest of the given file as a hex string
+     *
+     * @param file the file to digest
+     * @return the hex digest
+     */
+    static String digest(File file) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return toHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String sha256(String s) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        var hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
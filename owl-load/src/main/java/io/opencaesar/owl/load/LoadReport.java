@@ -0,0 +1,170 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.jena.atlas.json.JSON;
+import org.apache.jena.atlas.json.JsonArray;
+import org.apache.jena.atlas.json.JsonObject;
+
+/**
+ * A report of the metrics of the uploads of a load, which can be written as JSON or CSV
+ * (based on the extension of the report file) and summarized as throughput and slowest uploads.
+ */
+class LoadReport {
+
+    private static final int SLOWEST_COUNT = 5;
+
+    private final List<UploadMetrics> metrics;
+
+    private final long elapsedNanos;
+
+    /**
+     * Creates a new LoadReport object
+     *
+     * @param metrics the metrics of the uploads
+     * @param elapsedNanos the elapsed (wall clock) time of the uploads
+     */
+    LoadReport(List<UploadMetrics> metrics, long elapsedNanos) {
+        this.metrics = metrics;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Whether the report has no uploads
+     *
+     * @return true if there are no uploads
+     */
+    boolean isEmpty() {
+        return metrics.isEmpty();
+    }
+
+    /**
+     * Writes the report to the given file (as CSV if its extension is csv, otherwise as JSON)
+     *
+     * @param file the report file
+     * @throws IOException when the report cannot be written
+     */
+    void write(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            if (file.getName().endsWith(".csv")) {
+                writeCsv(out);
+            } else {
+                writeJson(out);
+            }
+        }
+    }
+
+    private void writeCsv(OutputStream out) {
+        var writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.println("name,bytes,triples,parseMillis,uploadMillis,status,attempts");
+        for (UploadMetrics m : metrics) {
+            writer.println("\"" + m.name.replace("\"", "\"\"") + "\"," + m.bytes + "," + (m.getTriples() >= 0 ? m.getTriples() : "") + ","
+                    + millis(m.getParseNanos()) + "," + millis(m.getUploadNanos()) + "," + (m.getStatus() != null ? m.getStatus() : "") + "," + m.getAttempts());
+        }
+        writer.flush();
+    }
+
+    private void writeJson(OutputStream out) {
+        var uploads = new JsonArray();
+        for (UploadMetrics m : metrics) {
+            var upload = new JsonObject();
+            upload.put("name", m.name);
+            upload.put("bytes", m.bytes);
+            if (m.getTriples() >= 0) {
+                upload.put("triples", m.getTriples());
+            }
+            upload.put("parseMillis", millis(m.getParseNanos()));
+            upload.put("uploadMillis", millis(m.getUploadNanos()));
+            if (m.getStatus() != null) {
+                upload.put("status", m.getStatus());
+            }
+            upload.put("attempts", m.getAttempts());
+            uploads.add(upload);
+        }
+        var report = new JsonObject();
+        report.put("elapsedMillis", millis(elapsedNanos));
+        report.put("bytes", getBytes());
+        report.put("triples", getTriples());
+        report.put("uploads", uploads);
+        JSON.write(out, report);
+    }
+
+    /**
+     * Summarizes the report as the throughput and the slowest uploads
+     *
+     * @return the summary
+     */
+    String summarize() {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        long triples = getTriples();
+        var summary = new StringBuilder();
+        summary.append(String.format("Ran %d upload(s), %.1f MB, %s triples in %.1f s (%.2f MB/s, %s triples/s)",
+                metrics.size(), getBytes() / 1e6, triples >= 0 ? triples : "?", seconds,
+                getBytes() / 1e6 / seconds, triples >= 0 ? String.format("%.0f", triples / seconds) : "?"));
+        var slowest = metrics.stream()
+                .sorted(Comparator.comparingLong(UploadMetrics::getTotalNanos).reversed())
+                .limit(SLOWEST_COUNT)
+                .collect(Collectors.toList());
+        if (!slowest.isEmpty()) {
+            summary.append("\nSlowest upload(s):");
+            for (UploadMetrics m : slowest) {
+                summary.append(String.format("\n  %s (%s, parse %d ms, upload %d ms, status %s)", m.name, formatSize(m.bytes),
+                        millis(m.getParseNanos()), millis(m.getUploadNanos()), m.getStatus() != null ? m.getStatus() : "?"));
+            }
+        }
+        return summary.toString();
+    }
+
+    private long getBytes() {
+        return metrics.stream().mapToLong(m -> m.bytes).sum();
+    }
+
+    /*
+     * The total number of known triples (i.e., of uploads parsed locally or counted by the endpoint), or -1 if none is known
+     */
+    private long getTriples() {
+        long total = -1;
+        for (UploadMetrics m : metrics) {
+            if (m.getTriples() >= 0) {
+                total = Math.max(total, 0) + m.getTriples();
+            }
+        }
+        return total;
+    }
+
+    private static String formatSize(long bytes) {
+        return (bytes < 1_000_000) ? String.format("%.1f KB", bytes / 1e3) : String.format("%.1f MB", bytes / 1e6);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -19,6 +19,8 @@ package io.opencaesar.owl.load;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.Authenticator;
 import java.net.ConnectException;
 import java.net.URI;
@@ -27,27 +29,36 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import io.opencaesar.owl.catalog.CatalogWatcher;
+import io.opencaesar.owl.catalog.OwlCatalog;
 
 import org.apache.jena.atlas.web.HttpException;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.http.HttpEnv;
-import org.apache.jena.ontology.OntDocumentManager;
-import org.apache.jena.ontology.OntModel;
-import org.apache.jena.ontology.OntModelSpec;
-import org.apache.jena.query.Dataset;
-import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdfconnection.LibSec;
 import org.apache.jena.rdfconnection.RDFConnection;
 import org.apache.jena.rdfconnection.RDFConnectionRemote;
 import org.apache.jena.rdfconnection.RDFConnectionRemoteBuilder;
+import org.apache.jena.rdflink.RDFConnectionAdapter;
+import org.apache.jena.rdflink.RDFLinkHTTP;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFLanguages;
-import org.apache.jena.util.FileManager;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.sparql.graph.GraphFactory;
 import org.apache.log4j.Appender;
 import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.Level;
@@ -137,21 +148,102 @@ public class OwlLoadApp {
             order = 9)
     private boolean loadToDefaultGraph;
 
+    @Parameter(
+            names = {"--parallelism", "-pl"},
+            description = "Max number of concurrent uploads, which is adapted to the endpoint's latency and errors (Optional, default=16)",
+            required = false,
+            order = 10)
+    private int parallelism = 16;
+
+    @Parameter(
+            names = {"--retries", "-r"},
+            description = "Max number of times a failed upload is retried (Optional, default=3)",
+            required = false,
+            order = 11)
+    private int retries = 3;
+
+    @Parameter(
+            names = {"--upload-format", "-uf"},
+            description = "Parse files locally and upload them in this format with gzip encoding, options: thrift, nt (Optional, default is to upload files as is)",
+            required = false,
+            order = 12)
+    private CompressedUploader.Format uploadFormat;
+
+    @Parameter(
+            names = {"--snapshot-path", "-sp"},
+            description = "Path to a folder of local snapshots of the loaded files, used to update the default graph with triple-level deltas (Optional)",
+            required = false,
+            order = 13)
+    private String snapshotPath;
+
+    @Parameter(
+            names = {"--report-path", "-rp"},
+            description = "Path to a JSON (or CSV if its extension is csv) report of the metrics of every upload (Optional)",
+            required = false,
+            order = 14)
+    private String reportPath;
+
+    @Parameter(
+            names = {"--staged", "-st"},
+            description = "Upload changed graphs to staging graphs first, then swap them into place with a single update (Optional)",
+            required = false,
+            order = 15)
+    private boolean staged;
+
+    @Parameter(
+            names = {"--chunk-size", "-cs"},
+            description = "Split N-Triples files larger than this size (in MB) into chunks of this size that are uploaded concurrently (Optional, default is not to split files)",
+            required = false,
+            order = 16)
+    private int chunkSize;
+
+    @Parameter(
+            names = {"--watch", "-w"},
+            description = "Keep running and load the changed graphs whenever files in the catalog's folders change (Optional)",
+            required = false,
+            order = 17)
+    private boolean watch;
+
     @Parameter(
             names = {"-d", "--debug"},
             description = "Shows debug logging statements",
-            order = 10)
+            order = 18)
     private boolean debug;
 
     @Parameter(
             names = {"--help", "-h"},
             description = "Displays summary of options",
             help = true,
-            order = 11)
+            order = 19)
     private boolean help;
 
+    /*
+     * The delay before the first retry of an upload (doubled for every subsequent retry)
+     */
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+
+    /*
+     * The initial number of concurrent uploads (adapted up to the parallelism option)
+     */
+    private static final int INITIAL_PARALLELISM = 4;
+
+    /*
+     * The time without file changes after which the changes are loaded in watch mode
+     */
+    private static final long WATCH_QUIET_MILLIS = 250;
+
+    /*
+     * The max number of triples in a DELETE DATA or INSERT DATA request of a delta
+     */
+    private static final int DELTA_BATCH_SIZE = 10000;
+
     private final static Logger LOGGER = Logger.getLogger(OwlLoadApp.class);
 
+    /*
+     * The http client shared by all requests
+     */
+    private HttpClient httpClient;
+
     static {
         DOMConfigurator.configure(ClassLoader.getSystemClassLoader().getResource("log4j.xml"));
     }
@@ -189,7 +281,7 @@ public class OwlLoadApp {
         if (app.iris.isEmpty() && app.irisPath == null) {
             throw new RuntimeException("Iris are not set");
         }
-        app.run(deltas);
+        app.start(deltas);
     }
 
     /**
@@ -198,7 +290,36 @@ public class OwlLoadApp {
     public OwlLoadApp() {
     }
 
-    private void run(Collection<File> deltas) throws Exception {
+    private void start(Collection<File> deltas) throws Exception {
+        // Create Owl Catalog (kept in memory while watching)
+        OwlCatalog catalog = OwlCatalog.create(new File(catalogPath), fileExtensions);
+
+        run(catalog, deltas);
+
+        if (watch) {
+            watch(catalog);
+        }
+    }
+
+    private void watch(OwlCatalog catalog) throws Exception {
+        try (var watcher = new CatalogWatcher(catalog, fileExtensions, WATCH_QUIET_MILLIS)) {
+            System.out.println("Watching for changes (press Ctrl+C to stop)");
+            while (true) {
+                var changes = watcher.take();
+                LOGGER.info("found " + changes.size() + " changed file(s)");
+                // files may have been added or removed
+                catalog.refresh();
+                try {
+                    run(catalog, changes);
+                } catch (Exception e) {
+                    // keep watching for the next changes (e.g., that fix the error)
+                    LOGGER.error("Error loading changes: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void run(OwlCatalog catalog, Collection<File> deltas) throws Exception {
         LOGGER.info("=================================================================");
         LOGGER.info("                        S T A R T");
         LOGGER.info("                     OWL Load " + getAppVersion());
@@ -209,48 +330,132 @@ public class OwlLoadApp {
         LOGGER.info(("IRIs = " + iris));
         LOGGER.info(("IRIs Path = " + irisPath));
 
-        // Create Owl Catalog
-        OwlCatalog catalog = OwlCatalog.create(new File(catalogPath), fileExtensions);
-
         // Get dataset Iris
         var dataset_iris = getDatasetIris(catalog);
         LOGGER.info("found " + dataset_iris.size() + " dataset iris");
 
-        // Get Changed Iris
-        var changed_iris = deltas != null ? getMappedIris(deltas, catalog) : dataset_iris;
-        LOGGER.info("found " + changed_iris.size() + " changed iris "
-                + ((deltas != null) ? "from mapping " + deltas.size() + " deltas" : "from dataset iris"));
-
-        changed_iris.forEach(iri -> LOGGER.debug("Changed " + iri));
-        
         // Get an RDF Connection
         RDFConnection conn = getRDFConnection();
 
+        // Create an upload engine
+        UploadEngine engine = new UploadEngine(this::getRDFConnection, INITIAL_PARALLELISM, Math.max(1, parallelism), Math.max(0, retries), RETRY_BACKOFF_MILLIS);
+
+        // Create a compressed uploader (if needed)
+        CompressedUploader uploader = uploadFormat != null ? new CompressedUploader(getHttpClient(), getGraphStoreEndpoint(conn), uploadFormat) : null;
+
+        // Create an uploader of file chunks (if needed)
+        CompressedUploader chunk_uploader = uploader != null ? uploader : new CompressedUploader(getHttpClient(), getGraphStoreEndpoint(conn), CompressedUploader.Format.NT);
+
+        // Create a snapshot store (if needed)
+        SnapshotStore snapshots = (loadToDefaultGraph && snapshotPath != null) ? new SnapshotStore(new File(snapshotPath)) : null;
+
         try {
+	        // Load the metadata of the previous loads to the endpoint
+	        LoadMetadata metadata = getMetadata(conn);
+
+	        // Get Changed Iris (from the deltas if given, otherwise by comparing digests to those recorded on the endpoint)
+	        String version_property = loadToDefaultGraph ? LoadMetadata.DEFAULT_VERSION : LoadMetadata.VERSION;
+	        String version = null, recorded_version = null;
+	        Map<String, String> digests;
+	        Collection<String> changed_iris;
+	        if (deltas != null) {
+	            digests = new HashMap<>();
+	            changed_iris = getMappedIris(deltas, catalog);
+	            LOGGER.info("found " + changed_iris.size() + " changed iris from mapping " + deltas.size() + " deltas");
+	        } else {
+	            digests = LoadMetadata.computeDigests(catalog, dataset_iris);
+	            version = LoadMetadata.computeVersion(digests);
+	            recorded_version = metadata.getVersion(version_property);
+	            LOGGER.info("recorded dataset version = " + recorded_version);
+	            if (version.equals(recorded_version)) {
+	                // the recorded digests are the same as the local ones
+	                changed_iris = Collections.emptySet();
+	                LOGGER.info("found no changed iris as the dataset version is unchanged");
+	            } else {
+	                changed_iris = LoadMetadata.getChangedIris(digests, getRecordedDigests(metadata, loadToDefaultGraph ? LoadMetadata.DEFAULT_DIGEST : LoadMetadata.DIGEST));
+	                LOGGER.info("found " + changed_iris.size() + " changed iris from comparing digests");
+	            }
+	        }
+
+	        changed_iris.forEach(iri -> LOGGER.debug("Changed " + iri));
+
 	        // Load the dataset
 	        if (loadToDefaultGraph) {
+	            if (snapshots != null) {
+	                // snapshots are saved by graph IRI and digest
+	                getDigests(digests, catalog, dataset_iris);
+	            }
+
 	            boolean load_everything = false;
-	            var default_graph_size = getDefaultGraphSize(conn);
-	            if (default_graph_size == 0) {
+	            boolean load_delta = false;
+	            var default_graph_empty = isDefaultGraphEmpty(conn);
+	            if (default_graph_empty || !changed_iris.isEmpty()) {
+	                // the version is cleared first so an interrupted load is not considered current next time
+	                metadata.setVersion(version_property, null);
+	            }
+	            if (default_graph_empty) {
 	                // load everything if there is nothing on the server.
 	                load_everything = true;
-	            } else if (default_graph_size > 0 && !changed_iris.isEmpty()) {
-	                // load everything when there is something on the server and there are changes.
-	                load_everything = true;
+	            } else if (!changed_iris.isEmpty()) {
+	                // load a delta when there are snapshots of the loaded files, otherwise load everything.
+	                load_delta = snapshots != null && loadDeltaToDefault(conn, engine, uploader, metadata, snapshots, catalog, dataset_iris, changed_iris, digests);
+	                load_everything = !load_delta;
 	            } else {
 	            	// no need to reload any file
 	            }
 	
 	            if (load_everything) {
 	                // in incremental mode: one graphs have either been deleted, modified, or added.
-	                // in batch mode: changed_iris = dataset_iris.
-	                removeAllFromDefault(conn);
+	                // in batch mode: the digests of some graphs differ from those recorded.
+	                metadata.clearDigests(LoadMetadata.DEFAULT_DIGEST);
 	                // load everything
-	                dataset_iris.parallelStream().forEach(iri -> loadToDefault(conn, catalog, iri));
+	                var quads = new QuadFileCache(catalog, dataset_iris);
+	                List<UploadEngine.Failure> failures;
+	                if (staged && isUnionDefaultGraph(conn)) {
+	                    // a staging graph would show in the default graph, so the data is loaded with a single update instead
+	                    checkFailures(loadWithOneUpdate(engine, snapshots, digests, quads, catalog, dataset_iris, Collections.emptySet(), true), 1);
+	                    failures = Collections.emptyList();
+	                } else {
+	                    String target = staged ? LoadMetadata.getStagingIri(null) : null;
+	                    if (staged) {
+	                        removeStagedGraphs(conn, Collections.singleton(target));
+	                    } else {
+	                        removeAllFromDefault(conn);
+	                    }
+	                    var chunks = snapshots == null ? getChunks(catalog, dataset_iris) : Collections.<String, List<FileChunker.Chunk>>emptyMap();
+	                    dataset_iris.forEach(iri -> {
+	                        if (chunks.containsKey(iri)) {
+	                            // all the chunks are added concurrently
+	                            submitChunks(engine, chunk_uploader, catalog, iri, chunks.get(iri), 0, target);
+	                        } else {
+	                            // a POST is not idempotent when the file has blank nodes
+	                            engine.submit(iri, getFileSize(catalog, iri), false, (c, m) -> loadToDefault(c, m, uploader, snapshots, digests.get(iri), quads, catalog, iri, target));
+	                        }
+	                    });
+	                    failures = getChunkedFailures(engine.await());
+	                    if (staged) {
+	                        if (failures.isEmpty()) {
+	                            swapStagedGraphs(conn, Collections.singletonMap(target, null), Collections.emptySet());
+	                        } else {
+	                            // nothing was swapped into place
+	                            removeStagedGraphs(conn, Collections.singleton(target));
+	                            checkFailures(failures, dataset_iris.size());
+	                        }
+	                    }
+	                }
+	                var loaded_digests = getDigests(digests, catalog, getSucceeded(dataset_iris, failures));
+	                metadata.updateDigests(LoadMetadata.DEFAULT_DIGEST, loaded_digests, Collections.emptySet());
+	                if (snapshots != null) {
+	                    snapshots.retain(loaded_digests);
+	                }
+	                checkFailures(failures, dataset_iris.size());
 	                System.out.println("Loaded "+dataset_iris.size()+" owl file(s) to default graph");
-	            } else {
+	            } else if (!load_delta) {
 	                System.out.println("Loaded no owl files to default graph");
 	            }
+	            if (version != null && (load_everything || load_delta || !version.equals(recorded_version))) {
+	                metadata.setVersion(version_property, version);
+	            }
 	        } else {
 	            // Get Loaded Iris
 	            var loaded_iris = getLoadedIris(conn);
@@ -269,17 +474,75 @@ public class OwlLoadApp {
 	                }
 	            });
 	            
-	            to_load_iris.parallelStream().forEach(iri -> put(conn, catalog, iri));
-	            loaded_iris.parallelStream().forEach(iri -> delete(conn, iri));
+	            boolean modified = !to_load_iris.isEmpty() || !loaded_iris.isEmpty();
+	            if (modified) {
+	                // the version is cleared first so an interrupted load is not considered current next time
+	                metadata.setVersion(version_property, null);
+	            }
+
+	            var quads = new QuadFileCache(catalog, to_load_iris);
+	            List<UploadEngine.Failure> failures;
+	            if (staged && modified && isUnionDefaultGraph(conn)) {
+	                // staging graphs would show in the default graph, so the data is loaded with a single update instead
+	                failures = loadWithOneUpdate(engine, null, digests, quads, catalog, to_load_iris, loaded_iris, false);
+	                checkFailures(failures, 1);
+	            } else {
+	                var chunks = getChunks(catalog, to_load_iris);
+	                to_load_iris.forEach(iri -> {
+	                    String target = staged ? LoadMetadata.getStagingIri(iri) : iri;
+	                    if (chunks.containsKey(iri)) {
+	                        // the first chunk replaces the graph
+	                        var chunk = chunks.get(iri).get(0);
+	                        engine.submit(getChunkName(iri, 0, chunks.get(iri).size()), chunk.getSize(), (c, m) -> putChunk(m, chunk_uploader, catalog, iri, chunk, target));
+	                    } else {
+	                        engine.submit(iri, getFileSize(catalog, iri), (c, m) -> put(c, m, uploader, quads, catalog, iri, target));
+	                    }
+	                });
+	                if (!staged) {
+	                    loaded_iris.forEach(iri -> engine.submit(iri, (c, m) -> delete(c, iri)));
+	                }
+	                failures = getChunkedFailures(engine.await());
+	                if (!chunks.isEmpty()) {
+	                    // the other chunks are then added concurrently to the graphs whose first chunk succeeded
+	                    var put_failures = failures;
+	                    chunks.keySet().stream()
+	                        .filter(iri -> put_failures.stream().noneMatch(f -> f.name.equals(iri)))
+	                        .forEach(iri -> submitChunks(engine, chunk_uploader, catalog, iri, chunks.get(iri), 1, staged ? LoadMetadata.getStagingIri(iri) : iri));
+	                    failures = new ArrayList<>(failures);
+	                    failures.addAll(getChunkedFailures(engine.await()));
+	                }
+	                if (staged) {
+	                    // swap all the staged graphs into place (and unload graphs) at once, or none if any upload failed
+	                    var staged_iris = new HashMap<String, String>();
+	                    to_load_iris.forEach(iri -> staged_iris.put(LoadMetadata.getStagingIri(iri), iri));
+	                    if (failures.isEmpty()) {
+	                        swapStagedGraphs(conn, staged_iris, loaded_iris);
+	                    } else {
+	                        // nothing was swapped into place
+	                        removeStagedGraphs(conn, staged_iris.keySet());
+	                        checkFailures(failures, to_load_iris.size());
+	                    }
+	                }
+	            }
+	            var unloaded_iris = getSucceeded(loaded_iris, failures);
+	            changed_iris.stream().filter(iri -> !dataset_iris.contains(iri)).forEach(unloaded_iris::add); // stale digests
+	            metadata.updateDigests(LoadMetadata.DIGEST, getDigests(digests, catalog, getSucceeded(to_load_iris, failures)), unloaded_iris);
+	            checkFailures(failures, to_load_iris.size() + loaded_iris.size());
 	            System.out.println("Loaded "+to_load_iris.size()+" owl file(s), unloaded "+loaded_iris.size()+" owl file(s)");
+	            if (version != null && (modified || !version.equals(recorded_version))) {
+	                metadata.setVersion(version_property, version);
+	            }
 	        }
         } catch (HttpException e) {
         	if (e.getCause() instanceof ConnectException) {
         		LOGGER.error("Connection Exception: check that the endpoint ("+endpointURL+") is reachable");
         	}
-    		throw e;
+	    	throw e;
         } finally {
-	        // Close connection
+	        // Report the uploads
+	        reportUploads(engine.getReport());
+	        // Close connections
+	        engine.close();
 	        conn.close();
 	        conn.end();
         }
@@ -289,23 +552,350 @@ public class OwlLoadApp {
         LOGGER.info("=================================================================");
     }
 
+    private void reportUploads(LoadReport report) {
+        if (!report.isEmpty()) {
+            System.out.println(report.summarize());
+        }
+        if (reportPath != null) {
+            try {
+                report.write(new File(reportPath));
+                LOGGER.info("Wrote report to " + reportPath);
+            } catch (Exception e) {
+                LOGGER.error("Error writing report to " + reportPath + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean loadDeltaToDefault(RDFConnection conn, UploadEngine engine, CompressedUploader uploader, LoadMetadata metadata, SnapshotStore snapshots,
+            OwlCatalog catalog, Set<String> dataset_iris, Collection<String> changed_iris, Map<String, String> digests) throws Exception {
+        // Check that there are snapshots of all the loaded files
+        var recorded = getRecordedDigests(metadata, LoadMetadata.DEFAULT_DIGEST);
+        boolean unrecorded = dataset_iris.stream().anyMatch(iri -> !changed_iris.contains(iri) && !recorded.containsKey(iri));
+        if (unrecorded || !recorded.entrySet().stream().allMatch(e -> snapshots.has(e.getKey(), e.getValue()))) {
+            LOGGER.info("missing snapshots of loaded files, loading everything");
+            return false;
+        }
+
+        // The files that are no longer in the dataset have changed too
+        var delta_iris = new HashSet<String>(changed_iris);
+        recorded.keySet().stream().filter(iri -> !dataset_iris.contains(iri)).forEach(delta_iris::add);
+
+        // Compute the delta of the changed files against their snapshots
+        Set<Triple> deletes = new HashSet<>();
+        Graph inserts = GraphFactory.createDefaultGraph();
+        Map<Triple, Integer> count_changes = new HashMap<>(); // the changes of the number of files with each triple
+        QuadFileCache quads = new QuadFileCache(catalog, delta_iris.stream().filter(dataset_iris::contains).collect(Collectors.toList()));
+        for (String iri : delta_iris) {
+            Graph old_graph = recorded.containsKey(iri) ? snapshots.load(iri, recorded.get(iri)) : Graph.emptyGraph;
+            Graph new_graph = dataset_iris.contains(iri) ? parseForDefault(null, quads, catalog, iri) : Graph.emptyGraph;
+            old_graph.find().forEachRemaining(t -> {
+                if (!new_graph.contains(t)) {
+                    deletes.add(t);
+                    count_changes.merge(t, -1, Integer::sum);
+                }
+            });
+            new_graph.find().forEachRemaining(t -> {
+                if (!old_graph.contains(t)) {
+                    inserts.add(t);
+                    if (!hasBlankNode(t)) {
+                        count_changes.merge(t, 1, Integer::sum);
+                    }
+                }
+            });
+            if (dataset_iris.contains(iri)) {
+                snapshots.save(iri, digests.get(iri), new_graph);
+            }
+        }
+
+        // Blank nodes cannot be deleted by value (and get new labels on every parse)
+        if (deletes.stream().anyMatch(t -> hasBlankNode(t))) {
+            LOGGER.info("delta deletes blank nodes, loading everything");
+            return false;
+        }
+
+        // Do not delete triples that are still asserted by other files (per the reference counts of the snapshots)
+        if (!deletes.isEmpty()) {
+            var counts = snapshots.getCounts(recorded, deletes);
+            deletes.removeIf(t -> counts.get(t) + count_changes.getOrDefault(t, 0) > 0);
+        }
+
+        // Apply the delta (the digests are cleared first so a failed delta causes a full load next time)
+        LOGGER.info("Loading delta of " + deletes.size() + " deleted and " + inserts.size() + " inserted triples");
+        metadata.clearDigests(LoadMetadata.DEFAULT_DIGEST);
+        int total;
+        List<UploadEngine.Failure> failures;
+        if (staged) {
+            // the whole delta is applied with a single (atomic) update request
+            var update = new StringBuilder();
+            appendData(update, "DELETE DATA", deletes.iterator(), Integer.MAX_VALUE);
+            update.append(" ;\n");
+            appendData(update, "INSERT DATA", inserts.find(), Integer.MAX_VALUE);
+            boolean idempotent = !inserts.find().filterKeep(t -> hasBlankNode(t)).hasNext();
+            engine.submit("delta", update.length(), idempotent, (c, m) -> {
+                m.parsed(deletes.size() + inserts.size(), 0);
+                c.update(update.toString());
+            });
+            total = 1;
+            failures = engine.await();
+        } else {
+            total = submitBatches(engine, "DELETE DATA", deletes.iterator());
+            failures = engine.await();
+        }
+        if (!staged && failures.isEmpty()) {
+            if (inserts.find().filterKeep(t -> hasBlankNode(t)).hasNext()) {
+                // blank nodes must be inserted in a single request to keep their identity (which is not idempotent)
+                engine.submit("inserts", 0, false, (c, m) -> {
+                    m.parsed(inserts.size(), 0);
+                    post(c, m, uploader, inserts, null);
+                });
+                total += 1;
+            } else {
+                total += submitBatches(engine, "INSERT DATA", inserts.find());
+            }
+            failures = engine.await();
+        }
+        checkFailures(failures, total);
+
+        var loaded_digests = getDigests(digests, catalog, dataset_iris);
+        metadata.updateDigests(LoadMetadata.DEFAULT_DIGEST, loaded_digests, Collections.emptySet());
+        snapshots.updateCounts(recorded, loaded_digests, count_changes);
+        snapshots.retain(loaded_digests);
+        System.out.println("Loaded delta of "+delta_iris.size()+" changed owl file(s) to default graph (-"+deletes.size()+"/+"+inserts.size()+" triples)");
+        return true;
+    }
+
+    private int submitBatches(UploadEngine engine, String operation, Iterator<Triple> triples) {
+        int count = 0;
+        while (triples.hasNext()) {
+            var update = new StringBuilder();
+            int batch_size = appendData(update, operation, triples, DELTA_BATCH_SIZE);
+            engine.submit(operation + " batch " + (++count), update.length(), (c, m) -> {
+                m.parsed(batch_size, 0);
+                c.update(update.toString());
+            });
+        }
+        return count;
+    }
+
+    private static int appendData(StringBuilder update, String operation, Iterator<Triple> triples, int max) {
+        update.append(operation + " {\n");
+        int size = appendTriples(update, triples, max);
+        update.append("}");
+        return size;
+    }
+
+    private static int appendTriples(StringBuilder update, Iterator<Triple> triples, int max) {
+        int size = 0;
+        for (; size < max && triples.hasNext(); size++) {
+            Triple t = triples.next();
+            update.append(NodeFmtLib.strNT(t.getSubject()) + " " + NodeFmtLib.strNT(t.getPredicate()) + " " + NodeFmtLib.strNT(t.getObject()) + " .\n");
+        }
+        return size;
+    }
+
+    /*
+     * Loads the graphs of the given IRIs (and unloads the other given IRIs) with a single (atomic) update request that carries the data
+     */
+    private List<UploadEngine.Failure> loadWithOneUpdate(UploadEngine engine, SnapshotStore snapshots, Map<String, String> digests, QuadFileCache quads, OwlCatalog catalog,
+            Collection<String> load_iris, Collection<String> unload_iris, boolean toDefault) throws Exception {
+        LOGGER.info("Loading " + load_iris.size() + " graph(s) with a single update");
+        var graphs = new ConcurrentHashMap<String, Graph>();
+        load_iris.parallelStream().forEach(iri -> graphs.put(iri, parseForDefault(null, quads, catalog, iri)));
+        var update = new StringBuilder();
+        if (toDefault) {
+            update.append("DROP SILENT DEFAULT ;\n");
+        } else {
+            load_iris.forEach(iri -> update.append("DROP SILENT GRAPH <" + iri + "> ;\n"));
+            unload_iris.forEach(iri -> update.append("DROP SILENT GRAPH <" + iri + "> ;\n"));
+        }
+        // blank nodes keep their identity within the one operation
+        update.append("INSERT DATA {\n");
+        int triples = 0;
+        for (String iri : load_iris) {
+            Graph graph = graphs.get(iri);
+            if (!toDefault) {
+                update.append("GRAPH <" + iri + "> {\n");
+            }
+            triples += appendTriples(update, graph.find(), Integer.MAX_VALUE);
+            if (!toDefault) {
+                update.append("}\n");
+            }
+            if (snapshots != null) {
+                snapshots.save(iri, digests.get(iri), graph);
+            }
+        }
+        update.append("}");
+        int size = triples;
+        engine.submit("update", update.length(), (c, m) -> {
+            m.parsed(size, 0);
+            c.update(update.toString());
+        });
+        return engine.await();
+    }
+
+    /*
+     * Splits the files of the given IRIs that are large enough into chunks (in parallel)
+     */
+    private Map<String, List<FileChunker.Chunk>> getChunks(OwlCatalog catalog, Collection<String> iris) {
+        if (chunkSize <= 0) {
+            return Collections.emptyMap();
+        }
+        long size = chunkSize * 1_000_000L;
+        var chunks = new ConcurrentHashMap<String, List<FileChunker.Chunk>>();
+        iris.parallelStream().forEach(iri -> {
+            File file = new File(QuadFileCache.getFile(catalog, iri));
+            if (FileChunker.isSplittable(file) && file.length() > size) {
+                try {
+                    var file_chunks = FileChunker.split(file, size);
+                    if (file_chunks == null) {
+                        LOGGER.info("Not splitting " + iri + " as it has blank nodes");
+                    } else if (file_chunks.size() > 1) {
+                        LOGGER.info("Splitting " + iri + " into " + file_chunks.size() + " chunks");
+                        chunks.put(iri, file_chunks);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error splitting " + file, e);
+                }
+            }
+        });
+        return chunks;
+    }
+
+    private void submitChunks(UploadEngine engine, CompressedUploader uploader, OwlCatalog catalog, String iri, List<FileChunker.Chunk> chunks, int from, String target) {
+        for (int i = from; i < chunks.size(); i++) {
+            var chunk = chunks.get(i);
+            engine.submit(getChunkName(iri, i, chunks.size()), chunk.getSize(), (c, m) -> postChunk(m, uploader, catalog, iri, chunk, target));
+        }
+    }
+
+    private static String getChunkName(String iri, int index, int count) {
+        return iri + " (chunk " + (index + 1) + " of " + count + ")";
+    }
+
+    /*
+     * Gets the given failures with the names of failed chunks replaced by the IRIs of their graphs (once per graph)
+     */
+    private static List<UploadEngine.Failure> getChunkedFailures(List<UploadEngine.Failure> failures) {
+        var result = new ArrayList<UploadEngine.Failure>();
+        var names = new HashSet<String>();
+        for (UploadEngine.Failure f : failures) {
+            int i = f.name.lastIndexOf(" (chunk ");
+            String name = i >= 0 ? f.name.substring(0, i) : f.name;
+            if (names.add(name)) {
+                result.add(name.equals(f.name) ? f : new UploadEngine.Failure(name, f.error, f.attempts));
+            }
+        }
+        return result;
+    }
+
+    private void swapStagedGraphs(RDFConnection conn, Map<String, String> staged_iris, Collection<String> unloaded_iris) {
+        LOGGER.info("Swapping " + staged_iris.size() + " staged graph(s) into place");
+        var update = new StringBuilder();
+        staged_iris.forEach((staging, iri) -> update.append("MOVE SILENT <" + staging + "> TO " + (iri != null ? "<" + iri + ">" : "DEFAULT") + " ;\n"));
+        unloaded_iris.forEach(iri -> update.append("DROP SILENT GRAPH <" + iri + "> ;\n"));
+        if (update.length() > 0) {
+            long start = System.nanoTime();
+            conn.update(update.toString());
+            LOGGER.info("Swapped staged graphs in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    private void removeStagedGraphs(RDFConnection conn, Collection<String> staging_iris) {
+        var update = new StringBuilder();
+        staging_iris.forEach(staging -> update.append("DROP SILENT GRAPH <" + staging + "> ;\n"));
+        if (update.length() > 0) {
+            conn.update(update.toString());
+        }
+    }
+
+    private static long getFileSize(OwlCatalog catalog, String iri) {
+        return new File(URI.create(catalog.resolveURI(iri))).length();
+    }
+
+    private static boolean hasBlankNode(Triple t) {
+        return t.getSubject().isBlank() || t.getObject().isBlank();
+    }
+
+    private void checkFailures(List<UploadEngine.Failure> failures, int total) {
+        if (!failures.isEmpty()) {
+            failures.forEach(f -> LOGGER.error("Failed " + f.name + " after " + f.attempts + " attempt(s): " + f.error.getMessage()));
+            throw new RuntimeException("Failed " + failures.size() + " of " + total + " upload(s) (see the log for details)", failures.get(0).error);
+        }
+    }
+
+    private Collection<String> getSucceeded(Collection<String> iris, List<UploadEngine.Failure> failures) {
+        var succeeded = new HashSet<String>(iris);
+        failures.forEach(f -> succeeded.remove(f.name));
+        return succeeded;
+    }
+
+    private Map<String, String> getDigests(Map<String, String> digests, OwlCatalog catalog, Collection<String> iris) {
+        var missing = new HashSet<String>(iris);
+        missing.removeAll(digests.keySet());
+        digests.putAll(LoadMetadata.computeDigests(catalog, missing));
+        var result = new HashMap<String, String>();
+        iris.forEach(iri -> result.put(iri, digests.get(iri)));
+        return result;
+    }
+
+    private LoadMetadata getMetadata(RDFConnection conn) {
+        var metadata = LoadMetadata.load(new File(catalogPath), endpointURL);
+        LOGGER.info("State path = " + metadata.getFile());
+        if (!metadata.exists()) {
+            // older versions recorded the metadata in a graph of the dataset
+            try {
+                conn.update("DROP SILENT GRAPH <" + LoadMetadata.LEGACY_GRAPH_IRI + ">");
+            } catch(Exception e) {
+           		LOGGER.error("Error accessing endpoint "+endpointURL+": "+e.getMessage());
+        		throw e;
+            }
+        }
+        return metadata;
+    }
+
+    private Map<String, String> getRecordedDigests(LoadMetadata metadata, String kind) {
+        var digests = metadata.getDigests(kind);
+        LOGGER.info("found " + digests.size() + " recorded digests");
+        return digests;
+    }
+
     private RDFConnection getRDFConnection() {
         RDFConnectionRemoteBuilder builder = RDFConnectionRemote.create()
                 .queryEndpoint(queryService)
-                .destination(endpointURL);
-
-        final String username = authenticationUsername != null ? System.getenv(authenticationUsername) : null;
-        final String password = authenticationPassword != null ? System.getenv(authenticationPassword) : null;
+                .destination(endpointURL)
+                .httpClient(getHttpClient());
+        return builder.build();
+    }
 
-        if (null != username && null != password) {
-            Authenticator authenticator = LibSec.authenticator(username, password);
-            HttpClient client = HttpEnv.httpClientBuilder()
-                    .authenticator(authenticator)
-                    .build();
-            builder = builder.httpClient(client);
+    /*
+     * Gets the URL of the Graph Store Protocol service that the given connection uploads graphs to
+     */
+    private String getGraphStoreEndpoint(RDFConnection conn) {
+        if (conn instanceof RDFConnectionAdapter && ((RDFConnectionAdapter) conn).getLink() instanceof RDFLinkHTTP) {
+            String gspURL = ((RDFLinkHTTP) ((RDFConnectionAdapter) conn).getLink()).getGraphStoreEndpoint();
+            if (gspURL != null) {
+                return gspURL;
+            }
         }
+        return endpointURL;
+    }
 
-        return builder.build();
+    private synchronized HttpClient getHttpClient() {
+        if (httpClient == null) {
+            final String username = authenticationUsername != null ? System.getenv(authenticationUsername) : null;
+            final String password = authenticationPassword != null ? System.getenv(authenticationPassword) : null;
+
+            // one pooled (HTTP/2 when the endpoint supports it) client for all connections
+            HttpClient.Builder builder = HttpEnv.httpClientBuilder()
+                    .version(HttpClient.Version.HTTP_2);
+            if (null != username && null != password) {
+                Authenticator authenticator = LibSec.authenticator(username, password);
+                builder = builder.authenticator(authenticator);
+            }
+            // the responses are recorded for the metrics of the uploads
+            httpClient = new RecordingHttpClient(builder.build());
+        }
+        return httpClient;
     }
 
     private Collection<String> getMappedIris(Collection<File> files, OwlCatalog catalog) {
@@ -328,26 +918,33 @@ public class OwlLoadApp {
 	        rs.forEachRemaining(s -> iris.add(s.getResource("g").getURI()));
         } catch(Exception e) {
        		LOGGER.error("Error accessing endpoint "+endpointURL+"/"+queryService+": "+e.getMessage());
-    		throw e;
+	    	throw e;
         }
         return iris;
     }
 
-    private int getDefaultGraphSize(RDFConnection conn) {
-        var rs = conn.query("select (count(*) as ?count) {?s ?p ?o}").execSelect();
-        // If there are results, retrieve the 'count' literal and return its integer
-        // value
-        if (rs.hasNext()) {
-            var sol = rs.next();
-            var count = sol.getLiteral("count").getInt();
-            LOGGER.info("default graph has "+count+" triples");
-            return count;
-        } else {
-        	LOGGER.info("getDefaultGraphSize - no results!");
-            return 0;
+    /*
+     * Checks whether the default graph shows the named graphs (e.g., with tdb:unionDefaultGraph) by adding a probe graph
+     */
+    private boolean isUnionDefaultGraph(RDFConnection conn) {
+        String probe = LoadMetadata.PROBE_IRI + "?" + UUID.randomUUID();
+        try {
+            conn.update("INSERT DATA { GRAPH <" + probe + "> { <" + probe + "> <" + probe + "> <" + probe + "> } }");
+            boolean union = conn.queryAsk("ask { <" + probe + "> ?p ?o }");
+            LOGGER.info("default graph is " + (union ? "the union of the named graphs" : "not the union of the named graphs"));
+            return union;
+        } finally {
+            conn.update("DROP SILENT GRAPH <" + probe + ">");
         }
     }
 
+    private boolean isDefaultGraphEmpty(RDFConnection conn) {
+        // a probe for any triple (rather than counting them all)
+        boolean empty = !conn.queryAsk("ask { ?s ?p ?o }");
+        LOGGER.info("default graph is " + (empty ? "empty" : "not empty"));
+        return empty;
+    }
+
     private Set<String> getDatasetIris(OwlCatalog catalog) throws Exception {
         if (!iris.isEmpty()) {
             return getIrisFromRoots(catalog);
@@ -358,32 +955,7 @@ public class OwlLoadApp {
     }
 
     private Set<String> getIrisFromRoots(OwlCatalog catalog) throws Exception {
-        OntDocumentManager mgr = new OntDocumentManager();
-        Map<String, URI> fileMap = catalog.getFileUriMap();
-        for (var entry : fileMap.entrySet()) {
-            mgr.addAltEntry(entry.getKey(), entry.getValue().toString());
-        }
-
-        OntModelSpec s = new OntModelSpec(OntModelSpec.OWL_MEM);
-        s.setDocumentManager(mgr);
-        OntModel ontModel = ModelFactory.createOntologyModel(s);
-        FileManager fileMgr = mgr.getFileManager();
-        for (var iri : iris) {
-        	try {
-        		fileMgr.readModelInternal(ontModel, iri);
-        	} catch (Exception e) {
-        		if (e instanceof HttpException && ((HttpException) e).getStatusCode() == 404) {
-            		LOGGER.error("Could not resolve iri <"+iri+"> using the catalog");
-        		} else {
-        			LOGGER.error("Error reading ontology with iri <"+iri+">");
-        		}
-        		throw e;
-        	}
-        }
-
-        Set<String> allIris = new HashSet<>();
-        ontModel.listOntologies().forEach(o -> allIris.add(o.getURI()));
-        return allIris;
+        return new ImportClosureScanner(catalog.getFileUriMap()).scan(iris);
     }
 
     private Set<String> getIrisFromPath() throws Exception {
@@ -406,22 +978,47 @@ public class OwlLoadApp {
         return iris;
     }
 
-    private void loadToDefault(RDFConnection conn, OwlCatalog catalog, String iri) {
+    private void loadToDefault(RDFConnection conn, UploadMetrics metrics, CompressedUploader uploader, SnapshotStore snapshots, String digest, QuadFileCache quads, OwlCatalog catalog, String iri, String target) throws Exception {
         LOGGER.info("Loading "+iri);
-        String documentURI = catalog.resolveURI(iri);
-        String documentFile = new File(URI.create(documentURI)).toString();
-        try {
-            Lang lang = RDFLanguages.filenameToLang(documentFile);
-            if (RDFLanguages.isQuads(lang)) {
-                Dataset ds = RDFDataMgr.loadDataset(documentFile.toString());
-                Model model = ds.getNamedModel(iri);
-                conn.load(model);
-            } else {
-                conn.load(documentFile);
+        String documentFile = QuadFileCache.getFile(catalog, iri);
+        if (QuadFileCache.isQuads(documentFile) || uploader != null || snapshots != null) {
+            Graph graph = parseForDefault(metrics, quads, catalog, iri);
+            if (snapshots != null) {
+                snapshots.save(iri, digest, graph);
             }
-            conn.commit();
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading '" + documentURI + "' to default graph: "+e.getMessage(), e);
+            post(conn, metrics, uploader, graph, target);
+        } else if (target != null) {
+            conn.load(target, documentFile);
+        } else {
+            conn.load(documentFile);
+        }
+    }
+
+    private Graph parseForDefault(UploadMetrics metrics, QuadFileCache quads, OwlCatalog catalog, String iri) {
+        String documentFile = QuadFileCache.getFile(catalog, iri);
+        if (QuadFileCache.isQuads(documentFile)) {
+            return parse(metrics, () -> quads.take(documentFile, iri));
+        } else {
+            return parse(metrics, () -> RDFDataMgr.loadGraph(documentFile));
+        }
+    }
+
+    private static Graph parse(UploadMetrics metrics, Supplier<Graph> parser) {
+        long start = System.nanoTime();
+        Graph graph = parser.get();
+        if (metrics != null) {
+            metrics.parsed(graph.size(), System.nanoTime() - start);
+        }
+        return graph;
+    }
+
+    private void post(RDFConnection conn, UploadMetrics metrics, CompressedUploader uploader, Graph graph, String target) throws Exception {
+        if (uploader != null) {
+            metrics.status(String.valueOf(target != null ? uploader.post(target, graph) : uploader.postToDefault(graph)));
+        } else if (target != null) {
+            conn.load(target, ModelFactory.createModelForGraph(graph));
+        } else {
+            conn.load(ModelFactory.createModelForGraph(graph));
         }
     }
 
@@ -435,31 +1032,39 @@ public class OwlLoadApp {
         }
     }
 
-    private void put(RDFConnection conn, OwlCatalog catalog, String iri) {
+    private void put(RDFConnection conn, UploadMetrics metrics, CompressedUploader uploader, QuadFileCache quads, OwlCatalog catalog, String iri, String target) throws Exception {
         LOGGER.info("Loading " + iri);
-        String documentURI = catalog.resolveURI(iri);
-        String documentFile = new File(URI.create(documentURI)).toString();
-        try {
-            Lang lang = RDFLanguages.filenameToLang(documentFile);
-            if (RDFLanguages.isQuads(lang)) {
-                conn.putDataset(documentFile);
+        String documentFile = QuadFileCache.getFile(catalog, iri);
+        if (QuadFileCache.isQuads(documentFile)) {
+            // the file is parsed once for all its named graphs
+            Graph graph = parse(metrics, () -> quads.take(documentFile, iri));
+            if (uploader != null) {
+                metrics.status(String.valueOf(uploader.put(target, graph)));
             } else {
-                conn.put(iri, documentFile);
+                conn.put(target, ModelFactory.createModelForGraph(graph));
             }
-            conn.commit();
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading '" + documentURI + "' to named graph: "+e.getMessage(), e);
+        } else if (uploader != null) {
+            Graph graph = parse(metrics, () -> RDFDataMgr.loadGraph(documentFile));
+            metrics.status(String.valueOf(uploader.put(target, graph)));
+        } else {
+            conn.put(target, documentFile);
         }
     }
 
-    private void delete(RDFConnection conn, String iri) {
+    private void putChunk(UploadMetrics metrics, CompressedUploader uploader, OwlCatalog catalog, String iri, FileChunker.Chunk chunk, String target) throws Exception {
+        LOGGER.info("Loading " + metrics.name);
+        metrics.status(String.valueOf(uploader.put(target, new File(QuadFileCache.getFile(catalog, iri)), chunk)));
+    }
+
+    private void postChunk(UploadMetrics metrics, CompressedUploader uploader, OwlCatalog catalog, String iri, FileChunker.Chunk chunk, String target) throws Exception {
+        LOGGER.info("Loading " + metrics.name);
+        File file = new File(QuadFileCache.getFile(catalog, iri));
+        metrics.status(String.valueOf(target != null ? uploader.post(target, file, chunk) : uploader.postToDefault(file, chunk)));
+    }
+
+    private void delete(RDFConnection conn, String iri) throws Exception {
         LOGGER.info("Unloading " + iri);
-        try {
-            conn.delete(iri);
-            conn.commit();
-        } catch (Exception e) {
-            throw new RuntimeException("Error unloading graph '" + iri + "': "+e.getMessage(), e);
-        }
+        conn.delete(iri);
     }
 
     private String getAppVersion() {
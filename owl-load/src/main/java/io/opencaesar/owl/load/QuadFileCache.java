@@ -0,0 +1,113 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.opencaesar.owl.catalog.OwlCatalog;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.sparql.core.DatasetGraph;
+
+/**
+ * A cache of parsed quad-format files (e.g., TriG) that lets the named graphs of a file be
+ * uploaded separately while the file is parsed (and split by graph) only once. A parsed file
+ * is dropped once all its graphs (among the given IRIs) have been taken.
+ */
+class QuadFileCache {
+
+    private final Map<String, Integer> usages = new HashMap<>();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static class Entry {
+        DatasetGraph dataset;
+        int remaining;
+
+        Entry(int remaining) {
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * Creates a new QuadFileCache object
+     *
+     * @param catalog the catalog to resolve IRIs to files
+     * @param iris the IRIs whose graphs will be taken
+     */
+    QuadFileCache(OwlCatalog catalog, Collection<String> iris) {
+        for (String iri : iris) {
+            String file = getFile(catalog, iri);
+            if (isQuads(file)) {
+                usages.merge(file, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Whether the given file has a quad format
+     *
+     * @param file the file path
+     * @return true if the file has a quad format
+     */
+    static boolean isQuads(String file) {
+        Lang lang = RDFLanguages.filenameToLang(file);
+        return lang != null && RDFLanguages.isQuads(lang);
+    }
+
+    /**
+     * Gets the path of the file of the given IRI
+     *
+     * @param catalog the catalog to resolve the IRI
+     * @param iri the IRI
+     * @return the file path
+     */
+    static String getFile(OwlCatalog catalog, String iri) {
+        return new File(URI.create(catalog.resolveURI(iri))).toString();
+    }
+
+    /**
+     * Takes the named graph of the given IRI from the given quad file (parsing the file if
+     * it is not parsed yet)
+     *
+     * @param file the path of the quad file
+     * @param iri the IRI of the named graph
+     * @return the named graph
+     */
+    Graph take(String file, String iri) {
+        Entry entry = entries.computeIfAbsent(file, f -> new Entry(usages.getOrDefault(f, 1)));
+        synchronized (entry) {
+            if (entry.dataset == null) {
+                entry.dataset = RDFDataMgr.loadDatasetGraph(file);
+            }
+            Graph graph = entry.dataset.getGraph(NodeFactory.createURI(iri));
+            if (--entry.remaining <= 0) {
+                entries.remove(file, entry);
+            }
+            return graph;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.PushPromiseHandler;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * An http client that records the responses to the (synchronous) requests that a thread sends while
+ * it records (e.g., the requests of an upload through a connection): the status of the last response,
+ * and the number of triples that the responses report (as the Graph Store Protocol service of Fuseki
+ * does). All the requests are sent by the given client.
+ */
+class RecordingHttpClient extends HttpClient {
+
+    /*
+     * The max number of bytes of a response body that are kept to find a triple count
+     */
+    private static final int MAX_BODY = 1024;
+
+    private static final Pattern TRIPLE_COUNT = Pattern.compile("\"tripleCount\"\\s*:\\s*(\\d+)");
+
+    private static final ThreadLocal<Record> records = new ThreadLocal<>();
+
+    /**
+     * The responses recorded by a thread
+     */
+    static class Record {
+        private int status = -1;
+
+        private long triples = -1;
+
+        synchronized void status(int status) {
+            this.status = status;
+        }
+
+        synchronized void body(byte[] body) {
+            if (status / 100 == 2) {
+                var m = TRIPLE_COUNT.matcher(new String(body, StandardCharsets.UTF_8));
+                if (m.find()) {
+                    triples = Math.max(triples, 0) + Long.parseLong(m.group(1));
+                }
+            }
+        }
+
+        /**
+         * Gets the status of the last response
+         *
+         * @return the HTTP status, or -1 if there was no response
+         */
+        synchronized int getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the number of triples reported by the responses
+         *
+         * @return the number of triples, or -1 if no response reported one
+         */
+        synchronized long getTriples() {
+            return triples;
+        }
+    }
+
+    private final HttpClient client;
+
+    /**
+     * Creates a new RecordingHttpClient object
+     *
+     * @param client the client that sends the requests
+     */
+    RecordingHttpClient(HttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Starts recording the responses to the requests of the current thread
+     *
+     * @return the record of the responses
+     */
+    static Record record() {
+        var record = new Record();
+        records.set(record);
+        return record;
+    }
+
+    /**
+     * Stops recording the responses to the requests of the current thread
+     */
+    static void stop() {
+        records.remove();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> handler) throws IOException, InterruptedException {
+        var record = records.get();
+        if (record == null) {
+            return client.send(request, handler);
+        }
+        return client.send(request, info -> {
+            record.status(info.statusCode());
+            return new RecordingSubscriber<>(handler.apply(info), record);
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> handler) {
+        return client.sendAsync(request, handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> handler, PushPromiseHandler<T> pushPromiseHandler) {
+        return client.sendAsync(request, handler, pushPromiseHandler);
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return client.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return client.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return client.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return client.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return client.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return client.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return client.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return client.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return client.executor();
+    }
+
+    @Override
+    public WebSocket.Builder newWebSocketBuilder() {
+        return client.newWebSocketBuilder();
+    }
+
+    /*
+     * A subscriber that keeps the start of a body (for the record) while passing it to the given subscriber
+     */
+    private static final class RecordingSubscriber<T> implements BodySubscriber<T> {
+
+        private final BodySubscriber<T> subscriber;
+
+        private final Record record;
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        RecordingSubscriber(BodySubscriber<T> subscriber, Record record) {
+            this.subscriber = subscriber;
+            this.record = record;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return subscriber.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (ByteBuffer buffer : buffers) {
+                var copy = buffer.duplicate();
+                int n = Math.min(copy.remaining(), MAX_BODY - body.size());
+                if (n > 0) {
+                    byte[] bytes = new byte[n];
+                    copy.get(bytes);
+                    body.write(bytes, 0, n);
+                }
+            }
+            subscriber.onNext(buffers);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            // recorded before the body ends for its reader
+            record.body(body.toByteArray());
+            subscriber.onComplete();
+        }
+    }
+}
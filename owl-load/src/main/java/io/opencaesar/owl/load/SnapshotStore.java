@@ -0,0 +1,365 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/**
+ * A local store of snapshots of the triples of loaded graphs. Snapshots are addressed by the IRI
+ * of the graph and the digest of the file it was parsed from (as recorded in the {@link LoadMetadata}),
+ * so the previous content of a loaded graph can be found from its recorded digest (even when several
+ * graphs come from the same quad file, and so have the same digest).
+ *
+ * The store also keeps the reference counts of the triples (without blank nodes) of a set of snapshots,
+ * i.e., the number of snapshots that have each triple, so a delta can tell whether a triple that a file
+ * no longer has is still asserted by other files without loading their snapshots. The counts are kept
+ * by 64-bit triple hash (sorted), and are rebuilt from the snapshots when they are not of the given set.
+ */
+class SnapshotStore {
+
+    private static final String EXTENSION = ".trdf.gz";
+
+    private static final String COUNTS_FILE = "triples.counts";
+
+    private static final int COUNTS_VERSION = 1;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    private final File folder;
+
+    /**
+     * Creates a new SnapshotStore object
+     *
+     * @param folder the folder of the snapshots
+     */
+    SnapshotStore(File folder) {
+        this.folder = folder;
+        folder.mkdirs();
+    }
+
+    /**
+     * Whether there is a snapshot of the given graph
+     *
+     * @param iri the IRI of the graph
+     * @param digest the digest of the file of the graph
+     * @return true if there is a snapshot
+     */
+    boolean has(String iri, String digest) {
+        return getFile(iri, digest).exists();
+    }
+
+    /**
+     * Loads the snapshot of the given graph
+     *
+     * @param iri the IRI of the graph
+     * @param digest the digest of the file of the graph
+     * @return the snapshot graph
+     */
+    Graph load(String iri, String digest) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        try (var in = new GZIPInputStream(Files.newInputStream(getFile(iri, digest).toPath()))) {
+            RDFDataMgr.read(graph, in, Lang.RDFTHRIFT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return graph;
+    }
+
+    /**
+     * Saves the snapshot of the given graph (if it does not exist already)
+     *
+     * @param iri the IRI of the graph
+     * @param digest the digest of the file of the graph
+     * @param graph the graph parsed from the file
+     */
+    void save(String iri, String digest, Graph graph) {
+        File file = getFile(iri, digest);
+        if (file.exists()) {
+            return;
+        }
+        try {
+            File temp = File.createTempFile(getKey(iri, digest), EXTENSION, folder);
+            try (var out = new GZIPOutputStream(Files.newOutputStream(temp.toPath()))) {
+                RDFDataMgr.write(out, graph, RDFFormat.RDF_THRIFT);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes the snapshots other than those of the given graphs
+     *
+     * @param digests a map from the IRI of a graph to retain to the digest of its file
+     */
+    void retain(Map<String, String> digests) {
+        var names = new HashSet<String>();
+        digests.forEach((iri, digest) -> names.add(getKey(iri, digest) + EXTENSION));
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(EXTENSION) && !names.contains(name));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Gets the reference counts of the given triples in the given snapshots (rebuilding the counts
+     * from the snapshots if they are not of those snapshots)
+     *
+     * @param digests a map from the IRI of a graph to the digest of its file
+     * @param triples the triples (without blank nodes)
+     * @return a map from triple to the number of the snapshots that have it
+     */
+    Map<Triple, Integer> getCounts(Map<String, String> digests, Collection<Triple> triples) {
+        var counts = new HashMap<Long, Integer>();
+        triples.forEach(t -> counts.put(hash(t), 0));
+        String key = getCountsKey(digests);
+        if (!readCounts(key, counts)) {
+            rebuildCounts(key, digests);
+            readCounts(key, counts);
+        }
+        var result = new HashMap<Triple, Integer>();
+        triples.forEach(t -> result.put(t, counts.get(hash(t))));
+        return result;
+    }
+
+    /**
+     * Updates the reference counts of the given old snapshots to those of the given new ones (or drops
+     * them if they are not of the old snapshots, so they are rebuilt when needed)
+     *
+     * @param oldDigests a map from the IRI of a graph to the digest of its file in the old snapshots
+     * @param newDigests a map from the IRI of a graph to the digest of its file in the new snapshots
+     * @param changes a map from triple (without blank nodes) to the change of its count
+     */
+    void updateCounts(Map<String, String> oldDigests, Map<String, String> newDigests, Map<Triple, Integer> changes) {
+        File file = new File(folder, COUNTS_FILE);
+        if (!file.isFile()) {
+            return;
+        }
+        var deltas = new TreeMap<Long, Integer>();
+        changes.forEach((t, change) -> deltas.merge(hash(t), change, Integer::sum));
+        try {
+            File temp = File.createTempFile(COUNTS_FILE, ".tmp", folder);
+            try {
+                boolean stale = false;
+                try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())));
+                     var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                    stale = in.readInt() != COUNTS_VERSION || !in.readUTF().equals(getCountsKey(oldDigests));
+                    if (stale) {
+                        return;
+                    }
+                    out.writeInt(COUNTS_VERSION);
+                    out.writeUTF(getCountsKey(newDigests));
+                    // merge the (sorted) counts with the (sorted) changes
+                    var next = deltas.pollFirstEntry();
+                    for (int count = readCount(in); count > 0 || next != null; ) {
+                        long hash = (count > 0) ? in.readLong() : Long.MAX_VALUE;
+                        while (next != null && (count <= 0 || next.getKey() < hash)) {
+                            writeCount(out, next.getKey(), next.getValue());
+                            next = deltas.pollFirstEntry();
+                        }
+                        if (count > 0) {
+                            if (next != null && next.getKey() == hash) {
+                                count += next.getValue();
+                                next = deltas.pollFirstEntry();
+                            }
+                            writeCount(out, hash, count);
+                            count = readCount(in);
+                        }
+                    }
+                    out.writeInt(0);
+                } finally {
+                    if (stale) {
+                        Files.delete(file.toPath());
+                    }
+                }
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Reads the counts of the given hashes (whose counts are 0) from the counts file, or returns false
+     * if the counts file is not of the snapshots of the given key
+     */
+    private boolean readCounts(String key, Map<Long, Integer> counts) {
+        File file = new File(folder, COUNTS_FILE);
+        if (!file.isFile()) {
+            return false;
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != COUNTS_VERSION || !in.readUTF().equals(key)) {
+                return false;
+            }
+            for (int count = readCount(in); count > 0; count = readCount(in)) {
+                int c = count;
+                counts.computeIfPresent(in.readLong(), (h, n) -> c);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Writes the counts file of the given snapshots from their triples
+     */
+    private void rebuildCounts(String key, Map<String, String> digests) {
+        long[] hashes = new long[1024];
+        int size = 0;
+        for (var e : digests.entrySet()) {
+            ExtendedIterator<Triple> triples = load(e.getKey(), e.getValue()).find();
+            try {
+                while (triples.hasNext()) {
+                    Triple t = triples.next();
+                    if (!t.getSubject().isBlank() && !t.getObject().isBlank()) {
+                        if (size == hashes.length) {
+                            hashes = Arrays.copyOf(hashes, 2 * size);
+                        }
+                        hashes[size++] = hash(t);
+                    }
+                }
+            } finally {
+                triples.close();
+            }
+        }
+        Arrays.sort(hashes, 0, size);
+        try {
+            File temp = File.createTempFile(COUNTS_FILE, ".tmp", folder);
+            try {
+                try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                    out.writeInt(COUNTS_VERSION);
+                    out.writeUTF(key);
+                    for (int i = 0; i < size; ) {
+                        int j = i;
+                        while (j < size && hashes[j] == hashes[i]) {
+                            j++;
+                        }
+                        writeCount(out, hashes[i], j - i);
+                        i = j;
+                    }
+                    out.writeInt(0);
+                }
+                Files.move(temp.toPath(), new File(folder, COUNTS_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Reads the count of the next entry (or 0 at the end, which is marked by a count of 0)
+     */
+    private static int readCount(DataInputStream in) throws IOException {
+        return in.readInt();
+    }
+
+    /*
+     * Writes an entry of the counts file (unless its count is not positive)
+     */
+    private static void writeCount(DataOutputStream out, long hash, int count) throws IOException {
+        if (count > 0) {
+            out.writeInt(count);
+            out.writeLong(hash);
+        }
+    }
+
+    /*
+     * Gets the key of the counts of a set of snapshots (a hash of their sorted keys)
+     */
+    private static String getCountsKey(Map<String, String> digests) {
+        var keys = new TreeSet<String>();
+        digests.forEach((iri, digest) -> keys.add(getKey(iri, digest)));
+        return getKey(String.join(" ", keys), "");
+    }
+
+    /*
+     * Gets the 64-bit hash of a triple (the first 8 bytes of the SHA-256 of its N-Triples form)
+     */
+    private static long hash(Triple t) {
+        String s = NodeFmtLib.strNT(t.getSubject()) + " " + NodeFmtLib.strNT(t.getPredicate()) + " " + NodeFmtLib.strNT(t.getObject());
+        byte[] bytes = SHA256.get().digest(s.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (bytes[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    private File getFile(String iri, String digest) {
+        return new File(folder, getKey(iri, digest) + EXTENSION);
+    }
+
+    /*
+     * Gets the key of a snapshot (a hash of the graph IRI and the file digest)
+     */
+    private static String getKey(String iri, String digest) {
+        try {
+            var bytes = MessageDigest.getInstance("SHA-256").digest((iri + "\n" + digest).getBytes(StandardCharsets.UTF_8));
+            var hex = new StringBuilder();
+            for (byte b : bytes) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
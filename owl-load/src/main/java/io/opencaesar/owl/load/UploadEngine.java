@@ -0,0 +1,276 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.jena.atlas.web.HttpException;
+import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.log4j.Logger;
+
+/**
+ * An engine that runs uploads to an endpoint with a bounded number of worker threads and a
+ * bounded queue (submitting blocks when the queue is full). Each worker thread uses its own
+ * connection. The number of in-flight uploads is adapted to the observed latency and errors
+ * by a {@link ConcurrencyLimiter}. Failed uploads are retried with exponential backoff, and
+ * the uploads that still fail are collected and returned at the end instead of aborting the
+ * other uploads. Uploads that are not idempotent (e.g., a POST of blank nodes, which would be
+ * added again) are retried only when the connection failed, i.e., before anything was sent.
+ */
+class UploadEngine implements AutoCloseable {
+
+    private final static Logger LOGGER = Logger.getLogger(UploadEngine.class);
+
+    /**
+     * An upload to run with a connection (which may record its parse metrics and status)
+     */
+    interface Upload {
+        void run(RDFConnection conn, UploadMetrics metrics) throws Exception;
+    }
+
+    /**
+     * A failed upload
+     */
+    static class Failure {
+        final String name;
+        final Exception error;
+        final int attempts;
+
+        Failure(String name, Exception error, int attempts) {
+            this.name = name;
+            this.error = error;
+            this.attempts = attempts;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    private final ConcurrencyLimiter limiter;
+
+    private final ThreadLocal<RDFConnection> connection;
+
+    private final Queue<RDFConnection> connections = new ConcurrentLinkedQueue<>();
+
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+    private final Queue<UploadMetrics> metrics = new ConcurrentLinkedQueue<>();
+
+    private long startNanos = -1;
+
+    private long elapsedNanos;
+
+    private final int retries;
+
+    private final long backoffMillis;
+
+    /**
+     * Creates a new UploadEngine object
+     *
+     * @param connectionFactory a factory of connections to the endpoint
+     * @param initialParallelism the initial number of concurrent uploads
+     * @param parallelism the max number of concurrent uploads
+     * @param retries the max number of times a failed upload is retried
+     * @param backoffMillis the delay before the first retry (doubled for each subsequent retry)
+     */
+    UploadEngine(Supplier<RDFConnection> connectionFactory, int initialParallelism, int parallelism, int retries, long backoffMillis) {
+        this.limiter = new ConcurrencyLimiter(initialParallelism, parallelism);
+        this.retries = retries;
+        this.backoffMillis = backoffMillis;
+        this.connection = ThreadLocal.withInitial(() -> {
+            RDFConnection conn = connectionFactory.get();
+            connections.add(conn);
+            return conn;
+        });
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2 * parallelism),
+                (r, e) -> {
+                    try {
+                        e.getQueue().put(r); // block the submitter until there is room in the queue
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(ex);
+                    }
+                });
+    }
+
+    /**
+     * Submits an upload (blocks while the queue is full)
+     *
+     * @param name the name of the upload (e.g., a graph IRI)
+     * @param upload the upload to run
+     */
+    void submit(String name, Upload upload) {
+        submit(name, 0, upload);
+    }
+
+    /**
+     * Submits an upload of a given weight (blocks while the queue is full)
+     *
+     * @param name the name of the upload (e.g., a graph IRI)
+     * @param weight the weight of the upload (e.g., the size of a file in bytes)
+     * @param upload the upload to run
+     */
+    void submit(String name, long weight, Upload upload) {
+        submit(name, weight, true, upload);
+    }
+
+    /**
+     * Submits an upload of a given weight (blocks while the queue is full)
+     *
+     * @param name the name of the upload (e.g., a graph IRI)
+     * @param weight the weight of the upload (e.g., the size of a file in bytes)
+     * @param idempotent whether the upload has the same effect when it is run again after a failure
+     * @param upload the upload to run
+     */
+    void submit(String name, long weight, boolean idempotent, Upload upload) {
+        if (startNanos < 0) {
+            startNanos = System.nanoTime();
+        }
+        var m = new UploadMetrics(name, weight);
+        metrics.add(m);
+        futures.add(executor.submit(() -> run(name, weight, idempotent, upload, m)));
+    }
+
+    /**
+     * Waits for all submitted uploads to finish
+     *
+     * @return the uploads that failed after all their retries
+     * @throws InterruptedException when interrupted while waiting
+     */
+    List<Failure> await() throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // failures are collected by run()
+            }
+        }
+        futures.clear();
+        if (startNanos >= 0) {
+            elapsedNanos += System.nanoTime() - startNanos;
+            startNanos = -1;
+        }
+        LOGGER.debug("Concurrency limit is " + limiter.getLimit());
+        List<Failure> result = new ArrayList<>(failures);
+        failures.clear();
+        return result;
+    }
+
+    /**
+     * Gets a report of the metrics of all the uploads that were awaited so far
+     *
+     * @return the load report
+     */
+    LoadReport getReport() {
+        return new LoadReport(new ArrayList<>(metrics), elapsedNanos);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        connections.forEach(conn -> conn.close());
+    }
+
+    private void run(String name, long weight, boolean idempotent, Upload upload, UploadMetrics m) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.add(new Failure(name, e, attempt));
+                return;
+            }
+            long start = System.nanoTime();
+            m.reset();
+            var record = RecordingHttpClient.record();
+            try {
+                try {
+                    upload.run(connection.get(), m);
+                } finally {
+                    RecordingHttpClient.stop();
+                }
+                long latency = System.nanoTime() - start;
+                limiter.release(latency, weight, false);
+                m.attempted(latency);
+                // the status and triple count of the responses to the requests of the connection
+                if (m.getStatus() == null && record.getStatus() >= 0) {
+                    m.status(String.valueOf(record.getStatus()));
+                }
+                if (m.getTriples() < 0 && record.getTriples() >= 0) {
+                    m.counted(record.getTriples());
+                }
+                return;
+            } catch (Exception e) {
+                long latency = System.nanoTime() - start;
+                limiter.release(latency, weight, isRetryable(e));
+                m.attempted(latency);
+                m.status(e instanceof HttpException && ((HttpException) e).getStatusCode() > 0 ? String.valueOf(((HttpException) e).getStatusCode()) : "error");
+                if (attempt > retries || !isRetryable(e) || (!idempotent && !isConnectFailure(e))) {
+                    failures.add(new Failure(name, e, attempt));
+                    return;
+                }
+                long delay = backoffMillis << (attempt - 1);
+                LOGGER.warn("Retrying " + name + " in " + delay + " ms (attempt " + attempt + " failed: " + e.getMessage() + ")");
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    failures.add(new Failure(name, e, attempt));
+                    return;
+                }
+            }
+        }
+    }
+
+    /*
+     * Retries server errors, throttling and transport errors but not client errors (like bad syntax)
+     */
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof HttpException) {
+            int status = ((HttpException) e).getStatusCode();
+            return status <= 0 || status == 429 || status >= 500;
+        }
+        return e instanceof IOException || e.getCause() instanceof IOException;
+    }
+
+    /*
+     * Whether the connection to the endpoint failed (so the request was not sent)
+     */
+    static boolean isConnectFailure(Throwable e) {
+        for (; e != null; e = e.getCause()) {
+            if (e instanceof ConnectException || e instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
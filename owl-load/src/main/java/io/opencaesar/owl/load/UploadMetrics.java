@@ -0,0 +1,118 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.load;
+
+/**
+ * The metrics of an upload (of the last attempt when it is retried)
+ */
+class UploadMetrics {
+
+    final String name;
+
+    final long bytes;
+
+    private long triples = -1;
+
+    private long parseNanos;
+
+    private long totalNanos;
+
+    private String status;
+
+    private int attempts;
+
+    /**
+     * Creates a new UploadMetrics object
+     *
+     * @param name the name of the upload (e.g., a graph IRI)
+     * @param bytes the size of the upload (e.g., the size of a file)
+     */
+    UploadMetrics(String name, long bytes) {
+        this.name = name;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Records that the upload was parsed locally
+     *
+     * @param triples the number of parsed triples
+     * @param nanos the parse time
+     */
+    synchronized void parsed(long triples, long nanos) {
+        this.triples = triples;
+        this.parseNanos = nanos;
+    }
+
+    /**
+     * Records the number of triples that the endpoint reported for the upload (when it was not parsed locally)
+     *
+     * @param triples the number of triples
+     */
+    synchronized void counted(long triples) {
+        this.triples = triples;
+    }
+
+    /**
+     * Records the HTTP status of the upload
+     *
+     * @param status the HTTP status (e.g., "200")
+     */
+    synchronized void status(String status) {
+        this.status = status;
+    }
+
+    /*
+     * Records an attempt (called by the upload engine)
+     */
+    synchronized void attempted(long nanos) {
+        this.attempts++;
+        this.totalNanos = nanos;
+    }
+
+    /*
+     * Resets the parts that are recorded again by an attempt (called by the upload engine)
+     */
+    synchronized void reset() {
+        this.triples = -1;
+        this.parseNanos = 0;
+        this.status = null;
+    }
+
+    synchronized long getTriples() {
+        return triples;
+    }
+
+    synchronized long getParseNanos() {
+        return parseNanos;
+    }
+
+    synchronized long getUploadNanos() {
+        return Math.max(0, totalNanos - parseNanos);
+    }
+
+    synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    synchronized String getStatus() {
+        return status;
+    }
+
+    synchronized int getAttempts() {
+        return attempts;
+    }
+}
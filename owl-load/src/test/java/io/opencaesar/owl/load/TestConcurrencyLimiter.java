@@ -0,0 +1,103 @@
+package io.opencaesar.owl.load;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestConcurrencyLimiter {
+
+    private static final long LATENCY = 10_000_000;
+
+    @Test
+    public void testInitialLimit() {
+        Assert.assertEquals(4, new ConcurrencyLimiter(4, 16).getLimit());
+        Assert.assertEquals(16, new ConcurrencyLimiter(32, 16).getLimit());
+        Assert.assertEquals(1, new ConcurrencyLimiter(0, 16).getLimit());
+    }
+
+    @Test
+    public void testAdditiveIncrease() throws Exception {
+        var limiter = new ConcurrencyLimiter(4, 16);
+
+        // the limit grows by one for every limit's worth of successful requests
+        succeed(limiter, 4, LATENCY);
+        Assert.assertEquals(4, limiter.getLimit());
+        succeed(limiter, 1, LATENCY);
+        Assert.assertEquals(5, limiter.getLimit());
+
+        succeed(limiter, 1000, LATENCY);
+        Assert.assertEquals(16, limiter.getLimit());
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOnOverload() throws Exception {
+        var limiter = new ConcurrencyLimiter(16, 16);
+
+        fail(limiter);
+        Assert.assertEquals(8, limiter.getLimit());
+        fail(limiter);
+        Assert.assertEquals(4, limiter.getLimit());
+        for (int i = 0; i < 10; i++) {
+            fail(limiter);
+        }
+        Assert.assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecreaseOnLatencyRise() throws Exception {
+        var limiter = new ConcurrencyLimiter(16, 16);
+        succeed(limiter, 100, LATENCY);
+        Assert.assertEquals(16, limiter.getLimit());
+
+        succeed(limiter, 5, 20 * LATENCY);
+
+        Assert.assertTrue(limiter.getLimit() < 16);
+    }
+
+    @Test
+    public void testLatencyIsNormalizedByWeight() throws Exception {
+        var limiter = new ConcurrencyLimiter(16, 16);
+        succeed(limiter, 100, LATENCY);
+
+        // a request 20 times larger is not slower per byte
+        limiter.acquire();
+        limiter.release(20 * LATENCY, 19 * 64 * 1024, false);
+
+        Assert.assertEquals(16, limiter.getLimit());
+    }
+
+    @Test
+    public void testAcquireWaitsForRelease() throws Exception {
+        var limiter = new ConcurrencyLimiter(1, 1);
+        limiter.acquire();
+        var acquired = new CountDownLatch(1);
+        var thread = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        Assert.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(LATENCY, 0, false);
+        Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        thread.join();
+    }
+
+    private static void succeed(ConcurrencyLimiter limiter, int count, long latency) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            limiter.acquire();
+            limiter.release(latency, 0, false);
+        }
+    }
+
+    private static void fail(ConcurrencyLimiter limiter) throws InterruptedException {
+        limiter.acquire();
+        limiter.release(LATENCY, 0, true);
+    }
+}
@@ -0,0 +1,97 @@
+package io.opencaesar.owl.load;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestFileChunker {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testIsSplittable() {
+        Assert.assertTrue(FileChunker.isSplittable(new File("data.nt")));
+        Assert.assertFalse(FileChunker.isSplittable(new File("data.ttl")));
+        Assert.assertFalse(FileChunker.isSplittable(new File("data.nq")));
+    }
+
+    @Test
+    public void testChunkBoundaries() throws Exception {
+        var content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("<http://example.com/s" + i + "> <http://example.com/p> \"" + "x".repeat(i % 7) + "\" .\n");
+        }
+        var file = file("data.nt", content.toString());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        var chunks = FileChunker.split(file, 500);
+
+        Assert.assertTrue(chunks.size() > 1);
+        long start = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            var chunk = chunks.get(i);
+            // the chunks are contiguous ranges of whole lines
+            Assert.assertEquals(start, chunk.start);
+            Assert.assertEquals('\n', bytes[(int) chunk.end - 1]);
+            if (i < chunks.size() - 1) {
+                Assert.assertTrue(chunk.getSize() >= 500);
+                // a chunk ends at the first line end after the size
+                Assert.assertTrue(lastIndexOf(bytes, (byte) '\n', (int) chunk.end - 2) - chunk.start + 1 < 500);
+            }
+            start = chunk.end;
+        }
+        Assert.assertEquals(bytes.length, start);
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        var file = file("data.nt", "<http://example.com/a> <http://example.com/p> 1 .\n<http://example.com/b> <http://example.com/p> 2 .\n");
+        var chunks = FileChunker.split(file, 1);
+        Assert.assertEquals(2, chunks.size());
+
+        var out = new ByteArrayOutputStream();
+        FileChunker.copy(file, chunks.get(1), out);
+
+        Assert.assertEquals("<http://example.com/b> <http://example.com/p> 2 .\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLastChunkWithoutLineEnd() throws Exception {
+        var file = file("data.nt", "<http://example.com/a> <http://example.com/p> 1 .\n<http://example.com/b> <http://example.com/p> 2 .");
+
+        var chunks = FileChunker.split(file, 1);
+
+        Assert.assertEquals(2, chunks.size());
+        Assert.assertEquals(file.length(), chunks.get(1).end);
+    }
+
+    @Test
+    public void testBlankNodesAreNotSplit() throws Exception {
+        var file = file("data.nt", "<http://example.com/a> <http://example.com/p> 1 .\n_:b0 <http://example.com/p> 2 .\n");
+
+        Assert.assertNull(FileChunker.split(file, 1));
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte b, int from) {
+        for (int i = from; i >= 0; i--) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private File file(String path, String content) throws IOException {
+        File file = new File(tmp.getRoot(), path);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
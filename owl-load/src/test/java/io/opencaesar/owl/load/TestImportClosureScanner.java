@@ -0,0 +1,94 @@
+package io.opencaesar.owl.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.ontology.OntDocumentManager;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestImportClosureScanner {
+
+    private static final String A = "http://example.com/a";
+
+    private static final String B = "http://example.com/b";
+
+    private static final String C = "http://example.com/c";
+
+    private static final String D = "http://example.com/d";
+
+    private static final String PREFIXES =
+            "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n" +
+            "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testImportsAfterHeader() throws Exception {
+        // the header comes first, but one import is stated after the other subjects
+        var fileMap = new HashMap<String, URI>();
+        fileMap.put(A, file("a.ttl", PREFIXES +
+                "<" + A + "> a owl:Ontology ; owl:imports <" + B + "> .\n" +
+                "<" + A + "#X> a owl:Class ; rdfs:subClassOf <" + A + "#Y> .\n" +
+                "<" + A + "> owl:imports <" + C + "> .\n"));
+        fileMap.put(B, file("b.ttl", PREFIXES + "<" + B + "> a owl:Ontology .\n"));
+        // the header of an N-Triples file may come last
+        fileMap.put(C, file("c.nt",
+                "<" + C + "#X> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/2002/07/owl#Class> .\n" +
+                "<" + C + "> <http://www.w3.org/2002/07/owl#imports> <" + D + "> .\n" +
+                "<" + C + "> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <http://www.w3.org/2002/07/owl#Ontology> .\n"));
+        fileMap.put(D, file("d.ttl", PREFIXES + "<" + D + "> a owl:Ontology ; owl:imports <" + A + "> .\n"));
+
+        Set<String> closure = new ImportClosureScanner(fileMap).scan(List.of(A));
+
+        Assert.assertEquals(Set.of(A, B, C, D), closure);
+        Assert.assertEquals(getOntModelClosure(fileMap, A), closure);
+    }
+
+    @Test
+    public void testUnresolvedImport() throws Exception {
+        var fileMap = new HashMap<String, URI>();
+        fileMap.put(A, file("a.ttl", PREFIXES + "<" + A + "> a owl:Ontology ; owl:imports <" + B + "> .\n"));
+
+        Assert.assertEquals(Set.of(A), new ImportClosureScanner(fileMap).scan(List.of(A)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnresolvedRoot() throws Exception {
+        new ImportClosureScanner(new HashMap<>()).scan(List.of(A));
+    }
+
+    /*
+     * Gets the import closure as loaded by an OntModel that resolves the IRIs with the given map
+     */
+    private static Set<String> getOntModelClosure(Map<String, URI> fileMap, String root) {
+        var manager = new OntDocumentManager();
+        fileMap.forEach((iri, uri) -> manager.addAltEntry(iri, uri.toString()));
+        var spec = new OntModelSpec(OntModelSpec.OWL_MEM);
+        spec.setDocumentManager(manager);
+        var model = ModelFactory.createOntologyModel(spec);
+        model.read(fileMap.get(root).toString(), "TTL");
+        var closure = new HashSet<String>(model.listImportedOntologyURIs(true));
+        closure.add(root);
+        return closure;
+    }
+
+    private URI file(String path, String content) throws IOException {
+        File file = new File(tmp.getRoot(), path);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.toURI();
+    }
+}
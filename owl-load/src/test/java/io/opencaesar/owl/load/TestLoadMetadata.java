@@ -0,0 +1,109 @@
+package io.opencaesar.owl.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestLoadMetadata {
+
+    private static final String ENDPOINT = "http://localhost:3030/dataset";
+
+    private static final String G1 = "http://example.com/g1";
+
+    private static final String G2 = "http://example.com/g2";
+
+    private static final String G3 = "http://example.com/g3";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testDigest() throws Exception {
+        var file = file("a.ttl", "<http://example.com/a> <http://example.com/p> 1 .\n");
+        String digest = LoadMetadata.digest(file);
+
+        Assert.assertEquals(digest, LoadMetadata.digest(file("b.ttl", "<http://example.com/a> <http://example.com/p> 1 .\n")));
+        file("a.ttl", "<http://example.com/a> <http://example.com/p> 2 .\n");
+        Assert.assertNotEquals(digest, LoadMetadata.digest(file));
+    }
+
+    @Test
+    public void testChangedIris() {
+        var recorded = Map.of(G1, "d1", G2, "d2", G3, "d3");
+        var local = Map.of(G1, "d1", G2, "changed", "http://example.com/new", "d4");
+
+        var changed = LoadMetadata.getChangedIris(local, recorded);
+
+        // modified, removed and added graphs
+        Assert.assertEquals(Set.of(G2, G3, "http://example.com/new"), changed);
+        Assert.assertTrue(LoadMetadata.getChangedIris(recorded, recorded).isEmpty());
+    }
+
+    @Test
+    public void testVersion() {
+        String version = LoadMetadata.computeVersion(Map.of(G1, "d1", G2, "d2"));
+
+        Assert.assertEquals(version, LoadMetadata.computeVersion(Map.of(G2, "d2", G1, "d1")));
+        Assert.assertNotEquals(version, LoadMetadata.computeVersion(Map.of(G1, "d1", G2, "changed")));
+        Assert.assertNotEquals(version, LoadMetadata.computeVersion(Map.of(G1, "d1")));
+    }
+
+    @Test
+    public void testState() throws Exception {
+        var catalog = file("catalog.xml", "");
+        var metadata = LoadMetadata.load(catalog, ENDPOINT);
+        Assert.assertFalse(metadata.exists());
+        Assert.assertTrue(metadata.getDigests(LoadMetadata.DIGEST).isEmpty());
+
+        metadata.updateDigests(LoadMetadata.DIGEST, Map.of(G1, "d1", G2, "d2"), List.of());
+        metadata.setVersion(LoadMetadata.VERSION, "v1");
+        metadata.updateDigests(LoadMetadata.DIGEST, Map.of(G3, "d3"), List.of(G2));
+
+        // the state is kept next to the catalog
+        var loaded = LoadMetadata.load(catalog, ENDPOINT);
+        Assert.assertTrue(loaded.exists());
+        Assert.assertEquals(new File(tmp.getRoot(), LoadMetadata.FOLDER), loaded.getFile().getParentFile());
+        Assert.assertEquals(Map.of(G1, "d1", G3, "d3"), loaded.getDigests(LoadMetadata.DIGEST));
+        Assert.assertEquals("v1", loaded.getVersion(LoadMetadata.VERSION));
+        Assert.assertTrue(loaded.getDigests(LoadMetadata.DEFAULT_DIGEST).isEmpty());
+        Assert.assertNull(loaded.getVersion(LoadMetadata.DEFAULT_VERSION));
+
+        loaded.setVersion(LoadMetadata.VERSION, null);
+        loaded.clearDigests(LoadMetadata.DIGEST);
+        var cleared = LoadMetadata.load(catalog, ENDPOINT);
+        Assert.assertNull(cleared.getVersion(LoadMetadata.VERSION));
+        Assert.assertTrue(cleared.getDigests(LoadMetadata.DIGEST).isEmpty());
+    }
+
+    @Test
+    public void testStatePerEndpoint() throws Exception {
+        var catalog = file("catalog.xml", "");
+        LoadMetadata.load(catalog, ENDPOINT).updateDigests(LoadMetadata.DIGEST, Map.of(G1, "d1"), List.of());
+
+        var other = LoadMetadata.load(catalog, "http://localhost:3030/other");
+
+        Assert.assertFalse(other.exists());
+        Assert.assertTrue(other.getDigests(LoadMetadata.DIGEST).isEmpty());
+    }
+
+    @Test
+    public void testStagingIri() {
+        Assert.assertEquals(LoadMetadata.STAGING_IRI + "?graph=http%3A%2F%2Fexample.com%2Fg1", LoadMetadata.getStagingIri(G1));
+        Assert.assertEquals(LoadMetadata.STAGING_IRI + "?default", LoadMetadata.getStagingIri(null));
+    }
+
+    private File file(String path, String content) throws IOException {
+        File file = new File(tmp.getRoot(), path);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,186 @@
+package io.opencaesar.owl.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestSnapshotStore {
+
+    private static final String G1 = "http://example.com/g1";
+
+    private static final String G2 = "http://example.com/g2";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testGraphsOfQuadFile() throws Exception {
+        // the graphs of a TriG file have the digest of the file
+        var file = file("data.trig",
+                "<" + G1 + "> { <http://example.com/a> <http://example.com/p> 1 . }\n" +
+                "<" + G2 + "> { <http://example.com/b> <http://example.com/p> 2 . <http://example.com/b> <http://example.com/p> 3 . }\n");
+        String digest = LoadMetadata.digest(file);
+        var quads = new QuadFileCache(null, List.of());
+        Graph g1 = quads.take(file.getPath(), G1);
+        Graph g2 = quads.take(file.getPath(), G2);
+        var snapshots = new SnapshotStore(tmp.newFolder("snapshots"));
+
+        snapshots.save(G1, digest, g1);
+        snapshots.save(G2, digest, g2);
+
+        Assert.assertTrue(snapshots.has(G1, digest));
+        Assert.assertTrue(snapshots.has(G2, digest));
+        Assert.assertTrue(snapshots.load(G1, digest).isIsomorphicWith(g1));
+        Assert.assertTrue(snapshots.load(G2, digest).isIsomorphicWith(g2));
+        Assert.assertEquals(2, snapshots.load(G2, digest).size());
+    }
+
+    @Test
+    public void testRetain() throws Exception {
+        var file = file("data.trig", "<" + G1 + "> { <http://example.com/a> <http://example.com/p> 1 . }\n");
+        String digest = LoadMetadata.digest(file);
+        Graph g1 = new QuadFileCache(null, List.of()).take(file.getPath(), G1);
+        var snapshots = new SnapshotStore(tmp.newFolder("snapshots"));
+        snapshots.save(G1, digest, g1);
+        snapshots.save(G2, digest, g1);
+        snapshots.save(G1, "other", g1);
+
+        snapshots.retain(Map.of(G1, digest));
+
+        Assert.assertTrue(snapshots.has(G1, digest));
+        Assert.assertFalse(snapshots.has(G2, digest));
+        Assert.assertFalse(snapshots.has(G1, "other"));
+    }
+
+    @Test
+    public void testCounts() throws Exception {
+        var t1 = triple("a", "1");
+        var t2 = triple("b", "2");
+        var t3 = triple("c", "3");
+        var snapshots = new SnapshotStore(tmp.newFolder("snapshots"));
+        snapshots.save(G1, "d1", graph(t1, t2));
+        snapshots.save(G2, "d2", graph(t2));
+        var old_digests = Map.of(G1, "d1", G2, "d2");
+
+        // the counts are built from the snapshots
+        var counts = snapshots.getCounts(old_digests, List.of(t1, t2, t3));
+        Assert.assertEquals(1, (int) counts.get(t1));
+        Assert.assertEquals(2, (int) counts.get(t2));
+        Assert.assertEquals(0, (int) counts.get(t3));
+
+        // g1 no longer has t1 but has t3
+        snapshots.save(G1, "d3", graph(t2, t3));
+        var new_digests = Map.of(G1, "d3", G2, "d2");
+        snapshots.updateCounts(old_digests, new_digests, Map.of(t1, -1, t3, 1));
+
+        // the updated counts are read without the snapshots
+        snapshots.retain(Map.of());
+        counts = snapshots.getCounts(new_digests, List.of(t1, t2, t3));
+        Assert.assertEquals(0, (int) counts.get(t1));
+        Assert.assertEquals(2, (int) counts.get(t2));
+        Assert.assertEquals(1, (int) counts.get(t3));
+    }
+
+    @Test
+    public void testStaleCounts() throws Exception {
+        var t1 = triple("a", "1");
+        var snapshots = new SnapshotStore(tmp.newFolder("snapshots"));
+        snapshots.save(G1, "d1", graph(t1));
+        snapshots.save(G2, "d2", graph(t1));
+        Assert.assertEquals(1, (int) snapshots.getCounts(Map.of(G1, "d1"), List.of(t1)).get(t1));
+
+        // counts of other snapshots are rebuilt
+        Assert.assertEquals(2, (int) snapshots.getCounts(Map.of(G1, "d1", G2, "d2"), List.of(t1)).get(t1));
+
+        // updates of counts of other snapshots drop them
+        snapshots.updateCounts(Map.of(G1, "d1"), Map.of(G1, "d3"), Map.of(t1, -1));
+        snapshots.save(G1, "d3", graph());
+        Assert.assertEquals(1, (int) snapshots.getCounts(Map.of(G1, "d3", G2, "d2"), List.of(t1)).get(t1));
+    }
+
+    @Test
+    public void testUpdatedCountsMatchRebuiltCounts() throws Exception {
+        var random = new Random(42);
+        var triples = new ArrayList<Triple>();
+        for (int i = 0; i < 300; i++) {
+            triples.add(triple("s" + i, "" + i));
+        }
+        var snapshots = new SnapshotStore(tmp.newFolder("snapshots"));
+        var digests = new HashMap<String, String>();
+        var graphs = new HashMap<String, Graph>();
+        for (int g = 0; g < 10; g++) {
+            Graph graph = graph();
+            triples.stream().filter(t -> random.nextInt(4) == 0).forEach(graph::add);
+            snapshots.save("http://example.com/g" + g, "v0", graph);
+            digests.put("http://example.com/g" + g, "v0");
+            graphs.put("http://example.com/g" + g, graph);
+        }
+        snapshots.getCounts(digests, triples);
+
+        for (int v = 1; v <= 5; v++) {
+            // change some graphs
+            var new_digests = new HashMap<String, String>(digests);
+            var changes = new HashMap<Triple, Integer>();
+            for (int g = 0; g < 10; g += 1 + random.nextInt(3)) {
+                String iri = "http://example.com/g" + g;
+                Graph old_graph = graphs.get(iri);
+                Graph new_graph = graph();
+                triples.stream().filter(t -> random.nextInt(4) == 0).forEach(new_graph::add);
+                old_graph.find().forEachRemaining(t -> {
+                    if (!new_graph.contains(t)) {
+                        changes.merge(t, -1, Integer::sum);
+                    }
+                });
+                new_graph.find().forEachRemaining(t -> {
+                    if (!old_graph.contains(t)) {
+                        changes.merge(t, 1, Integer::sum);
+                    }
+                });
+                snapshots.save(iri, "v" + v, new_graph);
+                new_digests.put(iri, "v" + v);
+                graphs.put(iri, new_graph);
+            }
+            snapshots.updateCounts(digests, new_digests, changes);
+            digests = new_digests;
+
+            var rebuilt = new SnapshotStore(tmp.newFolder("rebuilt" + v));
+            for (var e : digests.entrySet()) {
+                rebuilt.save(e.getKey(), e.getValue(), graphs.get(e.getKey()));
+            }
+            Assert.assertEquals(rebuilt.getCounts(digests, triples), snapshots.getCounts(digests, triples));
+        }
+    }
+
+    private static Triple triple(String s, String o) {
+        return Triple.create(NodeFactory.createURI("http://example.com/" + s), NodeFactory.createURI("http://example.com/p"), NodeFactory.createLiteral(o));
+    }
+
+    private static Graph graph(Triple... triples) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        for (Triple t : triples) {
+            graph.add(t);
+        }
+        return graph;
+    }
+
+    private File file(String path, String content) throws IOException {
+        var file = new File(tmp.getRoot(), path);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,128 @@
+package io.opencaesar.owl.load;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.atlas.web.HttpException;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdfconnection.RDFConnection;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUploadEngine {
+
+    private UploadEngine engine;
+
+    @After
+    public void close() {
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    @Test
+    public void testRetryServerError() throws Exception {
+        engine = newEngine(3, 1);
+        var attempts = new AtomicInteger();
+
+        engine.submit("g", (c, m) -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new HttpException(503, "Service Unavailable");
+            }
+        });
+
+        Assert.assertTrue(engine.await().isEmpty());
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testRetryThrottling() throws Exception {
+        Assert.assertEquals(2, getAttempts(true, new HttpException(429, "Too Many Requests"), 1));
+    }
+
+    @Test
+    public void testRetryTransportError() throws Exception {
+        Assert.assertEquals(2, getAttempts(true, new IOException("connection reset"), 1));
+        Assert.assertEquals(2, getAttempts(true, new RuntimeException(new IOException("connection reset")), 1));
+    }
+
+    @Test
+    public void testNoRetryClientError() throws Exception {
+        Assert.assertEquals(1, getAttempts(true, new HttpException(400, "Bad Request"), 3));
+        Assert.assertEquals(1, getAttempts(true, new IllegalArgumentException("bad syntax"), 3));
+    }
+
+    @Test
+    public void testMaxRetries() throws Exception {
+        Assert.assertEquals(3, getAttempts(true, new HttpException(500, "Internal Server Error"), 2));
+        Assert.assertEquals(1, getAttempts(true, new HttpException(500, "Internal Server Error"), 0));
+    }
+
+    @Test
+    public void testNotIdempotent() throws Exception {
+        // retried only when the request was not sent
+        Assert.assertEquals(1, getAttempts(false, new HttpException(503, "Service Unavailable"), 3));
+        Assert.assertEquals(1, getAttempts(false, new IOException("connection reset"), 3));
+        Assert.assertEquals(4, getAttempts(false, new HttpException(new ConnectException("Connection refused")), 3));
+    }
+
+    @Test
+    public void testBackoff() throws Exception {
+        engine = newEngine(3, 20);
+        long start = System.nanoTime();
+
+        engine.submit("g", (c, m) -> {
+            throw new HttpException(503, "Service Unavailable");
+        });
+        List<UploadEngine.Failure> failures = engine.await();
+
+        // the delays of the retries are 20, 40 and 80 ms
+        Assert.assertTrue((System.nanoTime() - start) / 1_000_000 >= 140);
+        Assert.assertEquals(4, failures.get(0).attempts);
+    }
+
+    @Test
+    public void testFailuresDoNotAbortOthers() throws Exception {
+        engine = newEngine(0, 1);
+        var succeeded = new AtomicInteger();
+
+        for (int i = 0; i < 20; i++) {
+            int index = i;
+            engine.submit("g" + i, (c, m) -> {
+                if (index % 5 == 0) {
+                    throw new HttpException(400, "Bad Request");
+                }
+                succeeded.incrementAndGet();
+            });
+        }
+        var failures = engine.await();
+
+        Assert.assertEquals(4, failures.size());
+        Assert.assertEquals(16, succeeded.get());
+        Assert.assertTrue(engine.await().isEmpty());
+    }
+
+    /*
+     * Gets the number of attempts of an upload that always fails with the given error
+     */
+    private int getAttempts(boolean idempotent, Exception error, int retries) throws Exception {
+        try (var engine = newEngine(retries, 1)) {
+            var attempts = new AtomicInteger();
+            engine.submit("g", 0, idempotent, (c, m) -> {
+                attempts.incrementAndGet();
+                throw error;
+            });
+            var failures = engine.await();
+            Assert.assertEquals(1, failures.size());
+            Assert.assertEquals(attempts.get(), failures.get(0).attempts);
+            return attempts.get();
+        }
+    }
+
+    private static UploadEngine newEngine(int retries, long backoffMillis) {
+        return new UploadEngine(() -> RDFConnection.connect(DatasetFactory.create()), 4, 8, retries, backoffMillis);
+    }
+}
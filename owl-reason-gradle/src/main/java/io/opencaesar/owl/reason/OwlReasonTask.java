@@ -2,11 +2,14 @@ package io.opencaesar.owl.reason;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.stream.Collectors;
 
+import io.opencaesar.owl.catalog.OwlCatalog;
+
 import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.ConfigurableFileCollection;
@@ -143,11 +146,31 @@ public abstract class OwlReasonTask extends DefaultTask {
 	 * IRI of the backbone ontology (Optional, default is http://opencaesar.io/oml).
 	 * 
 	 * @return String Property
+	 * @deprecated use {@link #getBackboneIris()} instead (the two cannot be set together)
 	 */
+	@Deprecated
 	@Optional
 	@Input
 	public abstract Property<String> getBackboneIri();
 
+	/**
+	 * IRI prefixes of backbone or imported vocabularies to exclude (Optional, default is http://opencaesar.io/oml).
+	 * 
+	 * @return List of Strings Property
+	 */
+	@Optional
+	@Input
+	public abstract ListProperty<String> getBackboneIris();
+
+	/**
+	 * Max number of output ontologies to serialize concurrently (Optional, default is the number of processors).
+	 * 
+	 * @return Integer Property
+	 */
+	@Optional
+	@Input
+	public abstract Property<Integer> getParallelism();
+
 	/**
 	 * Length of the indent property (Optional, default is 2).
 	 * 
@@ -187,14 +210,14 @@ public abstract class OwlReasonTask extends DefaultTask {
 	protected ConfigurableFileCollection getInputFiles() throws IOException, URISyntaxException {
 		if (getCatalogPath().isPresent() && getCatalogPath().get().exists() && !getSpecs().get().isEmpty()) {
 			final var catalogURI = getCatalogPath().get().toURI();
-			final var inputCatalog = OwlCatalog.create(catalogURI);
-			
 			final var inputFileExtensions = !getInputFileExtensions().get().isEmpty() ? getInputFileExtensions().get() : Collections.singletonList(OwlReasonApp.DEFAULT_INPUT_FILE_EXTENSION);
+			final var inputCatalog = OwlCatalog.create(getCatalogPath().get(), inputFileExtensions);
+			
 			final var inputFiles = inputCatalog.getFileUris(inputFileExtensions).stream().map(f-> new File(f)).collect(Collectors.toList());
 			
 			final var outputFileExtension = getOutputFileExtension().getOrElse(OwlReasonApp.DEFAULT_OUTPUT_FILE_EXTENSION);
 			final var outputIris = getSpecs().get().stream().map(s-> s.split("=")[0].trim()+"."+outputFileExtension).collect(Collectors.toList());
-			final var outputFiles = outputIris.stream().map(i-> new File(inputCatalog.resolve(i))).collect(Collectors.toList());
+			final var outputFiles = outputIris.stream().map(i-> new File(URI.create(inputCatalog.resolveURI(i)))).collect(Collectors.toList());
 			
 			inputFiles.removeAll(outputFiles);
 			inputFiles.add(new File(catalogURI));
@@ -214,12 +237,11 @@ public abstract class OwlReasonTask extends DefaultTask {
 	@OutputFiles
 	protected ConfigurableFileCollection getOutputFiles() throws IOException, URISyntaxException {
 		if (getCatalogPath().isPresent() && getCatalogPath().get().exists() && !getSpecs().get().isEmpty()) {
-			final var catalogURI = getCatalogPath().get().toURI();
-			final var inputCatalog = OwlCatalog.create(catalogURI);
+			final var inputCatalog = OwlCatalog.create(getCatalogPath().get(), Collections.emptyList());
 			
 			final var outputFileExtension = getOutputFileExtension().getOrElse(OwlReasonApp.DEFAULT_OUTPUT_FILE_EXTENSION);
 			final var outputIris = getSpecs().get().stream().map(s-> s.split("=")[0].trim()+"."+outputFileExtension).collect(Collectors.toList());
-			final var outputFiles = outputIris.stream().map(i-> new File(inputCatalog.resolve(i))).collect(Collectors.toList());
+			final var outputFiles = outputIris.stream().map(i-> new File(URI.create(inputCatalog.resolveURI(i)))).collect(Collectors.toList());
 			
 			return getProject().files(outputFiles);
 		}
@@ -284,9 +306,23 @@ public abstract class OwlReasonTask extends DefaultTask {
 			args.add(getRemoveBackbone().get() ? "true" : "false");
 		}
 		if (getBackboneIri().isPresent()) {
+			if (!getBackboneIris().getOrElse(Collections.emptyList()).isEmpty()) {
+				throw new GradleException("backboneIri and backboneIris cannot be set together (backboneIri is deprecated, use backboneIris)");
+			}
+			getLogger().warn("backboneIri is deprecated, use backboneIris instead");
 			args.add("-b");
 			args.add(getBackboneIri().get());
 		}
+		if (getBackboneIris().isPresent()) {
+			getBackboneIris().get().forEach((String iri) -> {
+				args.add("-b");
+				args.add(iri);
+			});
+		}
+		if (getParallelism().isPresent()) {
+			args.add("-p");
+			args.add(getParallelism().get().toString());
+		}
 		if (getIndent().isPresent()) {
 			args.add("-n");
 			args.add(getIndent().get().toString());
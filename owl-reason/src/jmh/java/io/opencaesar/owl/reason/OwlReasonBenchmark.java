@@ -0,0 +1,343 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.reason;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDocumentFormat;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.parameters.Imports;
+
+import openllet.jena.ModelExtractor;
+import openllet.jena.ModelExtractor.StatementType;
+import openllet.owlapi.OpenlletReasoner;
+import openllet.owlapi.OpenlletReasonerFactory;
+import openllet.owlapi.explanation.PelletExplanation;
+
+/**
+ * JMH benchmarks of the phases of {@link OwlReasonApp} on a synthetic ontology.
+ *
+ * The shape of the ontology is controlled by the benchmark parameters, e.g.:
+ * <pre>./gradlew owl-reason:jmh -PjmhArgs="-p classCount=5000 -p individualCount=10000 Satisfiability"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OwlReasonBenchmark {
+
+	private static final EnumSet<StatementType> STATEMENT_TYPES = EnumSet.of(
+			StatementType.ALL_SUBCLASS,
+			StatementType.ALL_SUBPROPERTY,
+			StatementType.ALL_INSTANCE);
+
+	/**
+	 * Number of classes
+	 */
+	@Param("1000")
+	public int classCount;
+
+	/**
+	 * Depth of the taxonomy
+	 */
+	@Param("5")
+	public int depth;
+
+	/**
+	 * Fraction of classes with restrictions
+	 */
+	@Param("0.1")
+	public double restrictionDensity;
+
+	/**
+	 * Number of individuals
+	 */
+	@Param("1000")
+	public int individualCount;
+
+	/**
+	 * Number of unsatisfiable classes as a fraction of the class count
+	 */
+	@Param("0.01")
+	public double unsatisfiabilityRate;
+
+	private File folder;
+
+	private OwlReasonApp app;
+
+	private OWLOntologyManager manager;
+
+	private OWLOntology ontology;
+
+	private OpenlletReasoner reasoner;
+
+	private PelletExplanation explanation;
+
+	private List<OWLClass> unsatisfiableClasses;
+
+	private Model entailments;
+
+	private final OWLDocumentFormat explanationFormat = new RDFXMLDocumentFormat();
+
+	/**
+	 * Creates a new OwlReasonBenchmark object
+	 */
+	public OwlReasonBenchmark() {
+	}
+
+	/**
+	 * Generates the synthetic ontology and prepares a classified reasoner on it.
+	 *
+	 * @throws Exception error
+	 */
+	@Setup
+	public void setup() throws Exception {
+		folder = Files.createTempDirectory("owl-reason-jmh").toFile();
+		File catalog = new SyntheticOntologyGenerator()
+				.classCount(classCount)
+				.depth(depth)
+				.restrictionDensity(restrictionDensity)
+				.individualCount(individualCount)
+				.unsatisfiabilityRate(unsatisfiabilityRate)
+				.generate(folder);
+
+		app = new OwlReasonApp();
+		Logger.getRootLogger().setLevel(Level.WARN);
+		app.parse(
+				"-c", catalog.getAbsolutePath(),
+				"-i", SyntheticOntologyGenerator.ONTOLOGY_IRI,
+				"-s", SyntheticOntologyGenerator.ONTOLOGY_IRI + "/entailments=ALL_SUBCLASS",
+				"-r", new File(folder, "report.xml").getAbsolutePath(),
+				"-b", SyntheticOntologyGenerator.BACKBONE_IRI,
+				"-oe");
+
+		manager = app.createManager();
+		ontology = manager.loadOntology(IRI.create(SyntheticOntologyGenerator.ONTOLOGY_IRI));
+
+		PelletExplanation.setup();
+		reasoner = OpenlletReasonerFactory.getInstance().createReasoner(ontology);
+		explanation = new PelletExplanation(reasoner);
+		reasoner.isConsistent();
+		unsatisfiableClasses = ontology.classesInSignature(Imports.INCLUDED)
+				.filter(c -> !c.isOWLNothing() && !reasoner.isSatisfiable(c))
+				.collect(Collectors.toList());
+
+		ModelExtractor extractor = new ModelExtractor(reasoner.getKB());
+		entailments = app.extractEntailments(extractor, STATEMENT_TYPES);
+	}
+
+	/**
+	 * Deletes the synthetic ontology.
+	 *
+	 * @throws Exception error
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		reasoner.dispose();
+		try (Stream<Path> paths = Files.walk(folder.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	/**
+	 * A reasoner that is freshly created (and checked for consistency) for every invocation.
+	 */
+	@State(Scope.Thread)
+	public static class FreshReasoner {
+		OpenlletReasoner reasoner;
+		PelletExplanation explanation;
+
+		/**
+		 * Creates a new FreshReasoner object
+		 */
+		public FreshReasoner() {
+		}
+
+		/**
+		 * Creates the reasoner
+		 *
+		 * @param benchmark the benchmark state
+		 */
+		@Setup(org.openjdk.jmh.annotations.Level.Invocation)
+		public void setup(OwlReasonBenchmark benchmark) {
+			reasoner = OpenlletReasonerFactory.getInstance().createReasoner(benchmark.ontology);
+			explanation = new PelletExplanation(reasoner);
+			reasoner.isConsistent();
+		}
+
+		/**
+		 * Disposes the reasoner
+		 */
+		@TearDown(org.openjdk.jmh.annotations.Level.Invocation)
+		public void tearDown() {
+			reasoner.dispose();
+		}
+	}
+
+	/**
+	 * A copy of the extracted entailments for every invocation.
+	 */
+	@State(Scope.Thread)
+	public static class FreshEntailments {
+		Model entailments;
+
+		/**
+		 * Creates a new FreshEntailments object
+		 */
+		public FreshEntailments() {
+		}
+
+		/**
+		 * Copies the entailments
+		 *
+		 * @param benchmark the benchmark state
+		 */
+		@Setup(org.openjdk.jmh.annotations.Level.Invocation)
+		public void setup(OwlReasonBenchmark benchmark) {
+			entailments = ModelFactory.createDefaultModel().add(benchmark.entailments);
+		}
+	}
+
+	/**
+	 * Loads the ontology through the catalog.
+	 *
+	 * @return the loaded ontology
+	 * @throws Exception error
+	 */
+	@Benchmark
+	public OWLOntology load() throws Exception {
+		return app.createManager().loadOntology(IRI.create(SyntheticOntologyGenerator.ONTOLOGY_IRI));
+	}
+
+	/**
+	 * Creates a reasoner and checks its consistency.
+	 *
+	 * @return the consistency results
+	 * @throws Exception error
+	 */
+	@Benchmark
+	public Object consistency() throws Exception {
+		OpenlletReasoner fresh = OpenlletReasonerFactory.getInstance().createReasoner(ontology);
+		try {
+			return app.checkConsistency(SyntheticOntologyGenerator.ONTOLOGY_IRI, fresh, new PelletExplanation(fresh), explanationFormat);
+		} finally {
+			fresh.dispose();
+		}
+	}
+
+	/**
+	 * Checks the satisfiability of all classes on a consistent reasoner.
+	 *
+	 * @param state a fresh reasoner
+	 * @return the satisfiability results
+	 * @throws Exception error
+	 */
+	@Benchmark
+	public Object satisfiability(FreshReasoner state) throws Exception {
+		return app.checkSatisfiability(SyntheticOntologyGenerator.ONTOLOGY_IRI, state.reasoner, state.explanation, explanationFormat);
+	}
+
+	/**
+	 * Explains all unsatisfiable classes.
+	 *
+	 * @param blackhole the blackhole
+	 * @throws Exception error
+	 */
+	@Benchmark
+	public void explanation(Blackhole blackhole) throws Exception {
+		for (OWLClass c : unsatisfiableClasses) {
+			blackhole.consume(app.createExplanationOntology(explanation.getUnsatisfiableExplanation(c), explanationFormat));
+		}
+	}
+
+	/**
+	 * Checks the min cardinality restrictions.
+	 *
+	 * @return the min cardinality result
+	 * @throws Exception error
+	 */
+	@Benchmark
+	public Object minCardinalities() throws Exception {
+		return app.checkMinCardinalities(SyntheticOntologyGenerator.ONTOLOGY_IRI, reasoner.getKB(), manager, explanationFormat);
+	}
+
+	/**
+	 * Extracts the entailments (filtering the backbone).
+	 *
+	 * @return the extracted entailments
+	 */
+	@Benchmark
+	public Model extraction() {
+		return app.extractEntailments(app.createExtractor(reasoner.getKB()), STATEMENT_TYPES);
+	}
+
+	/**
+	 * Removes trivial entailments.
+	 *
+	 * @param state a copy of the entailments
+	 * @return the remaining entailments
+	 */
+	@Benchmark
+	public Model removeTrivial(FreshEntailments state) {
+		return app.removeTrivial(state.entailments, true);
+	}
+
+	/**
+	 * Matches the entailments against the backbone filter.
+	 *
+	 * @return the number of backbone entailments
+	 */
+	@Benchmark
+	public long removeBackbone() {
+		IriPrefixTrie backbone = new IriPrefixTrie(List.of(SyntheticOntologyGenerator.BACKBONE_IRI));
+		return entailments.getGraph().find(Node.ANY, Node.ANY, Node.ANY)
+				.filterKeep(t -> OwlReasonApp.isBackbone(t, backbone))
+				.toList().size();
+	}
+}
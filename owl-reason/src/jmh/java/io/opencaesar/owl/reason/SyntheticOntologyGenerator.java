@@ -0,0 +1,253 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.reason;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.formats.RDFXMLDocumentFormat;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+/**
+ * Generates a synthetic OWL ontology (and an OASIS XML catalog for it) with a configurable shape.
+ *
+ * The ontology has a taxonomy of classes whose roots specialize a backbone class, min cardinality
+ * and some values from restrictions on a fraction of the classes, individuals that satisfy
+ * the restrictions of their types, and a fraction of unsatisfiable classes (that specialize
+ * two disjoint classes).
+ */
+public class SyntheticOntologyGenerator {
+
+	/**
+	 * The namespace of the generated ontology
+	 */
+	public static final String ONTOLOGY_IRI = "http://example.com/synthetic/ontology";
+
+	/**
+	 * The namespace of the generated backbone items
+	 */
+	public static final String BACKBONE_IRI = "http://example.com/synthetic/backbone";
+
+	private static final String BASE_IRI = "http://example.com/synthetic/";
+
+	private int classCount = 100;
+
+	private int depth = 4;
+
+	private double restrictionDensity = 0.1;
+
+	private int individualCount = 100;
+
+	private double unsatisfiabilityRate = 0;
+
+	private long seed = 0;
+
+	/**
+	 * Creates a new SyntheticOntologyGenerator object
+	 */
+	public SyntheticOntologyGenerator() {
+	}
+
+	/**
+	 * Sets the number of (satisfiable) classes
+	 *
+	 * @param classCount number of classes
+	 * @return this generator
+	 */
+	public SyntheticOntologyGenerator classCount(int classCount) {
+		this.classCount = classCount;
+		return this;
+	}
+
+	/**
+	 * Sets the depth of the class taxonomy
+	 *
+	 * @param depth the number of taxonomy levels
+	 * @return this generator
+	 */
+	public SyntheticOntologyGenerator depth(int depth) {
+		this.depth = Math.max(1, depth);
+		return this;
+	}
+
+	/**
+	 * Sets the fraction of classes that have a restriction
+	 *
+	 * @param restrictionDensity a number between 0 and 1
+	 * @return this generator
+	 */
+	public SyntheticOntologyGenerator restrictionDensity(double restrictionDensity) {
+		this.restrictionDensity = restrictionDensity;
+		return this;
+	}
+
+	/**
+	 * Sets the number of individuals
+	 *
+	 * @param individualCount number of individuals
+	 * @return this generator
+	 */
+	public SyntheticOntologyGenerator individualCount(int individualCount) {
+		this.individualCount = individualCount;
+		return this;
+	}
+
+	/**
+	 * Sets the number of unsatisfiable classes as a fraction of the class count
+	 *
+	 * @param unsatisfiabilityRate a number between 0 and 1
+	 * @return this generator
+	 */
+	public SyntheticOntologyGenerator unsatisfiabilityRate(double unsatisfiabilityRate) {
+		this.unsatisfiabilityRate = unsatisfiabilityRate;
+		return this;
+	}
+
+	/**
+	 * Sets the seed of the random generator
+	 *
+	 * @param seed the random seed
+	 * @return this generator
+	 */
+	public SyntheticOntologyGenerator seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Generates the ontology and its catalog in the given folder
+	 *
+	 * @param folder the output folder
+	 * @return the generated catalog file
+	 * @throws Exception error
+	 */
+	public File generate(File folder) throws Exception {
+		final Random random = new Random(seed);
+		final OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		final OWLDataFactory factory = manager.getOWLDataFactory();
+		final OWLOntology ontology = manager.createOntology(IRI.create(ONTOLOGY_IRI));
+		final List<OWLAxiom> axioms = new ArrayList<>();
+
+		// backbone
+
+		final OWLClass concept = factory.getOWLClass(IRI.create(BACKBONE_IRI + "#Concept"));
+		final OWLObjectProperty relation = factory.getOWLObjectProperty(IRI.create(BACKBONE_IRI + "#relation"));
+		axioms.add(factory.getOWLDeclarationAxiom(concept));
+		axioms.add(factory.getOWLDeclarationAxiom(relation));
+
+		// taxonomy
+
+		final List<OWLClass> classes = new ArrayList<>();
+		final Map<OWLClass, OWLClass> parents = new HashMap<>();
+		final int perLevel = Math.max(1, classCount / depth);
+		for (int i = 0; i < classCount; i++) {
+			final OWLClass c = factory.getOWLClass(IRI.create(ONTOLOGY_IRI + "#C" + i));
+			axioms.add(factory.getOWLDeclarationAxiom(c));
+			final int level = Math.min(depth - 1, i / perLevel);
+			if (level == 0) {
+				axioms.add(factory.getOWLSubClassOfAxiom(c, concept));
+			} else {
+				final int parentIndex = (level - 1) * perLevel + random.nextInt(perLevel);
+				final OWLClass parent = classes.get(parentIndex);
+				parents.put(c, parent);
+				axioms.add(factory.getOWLSubClassOfAxiom(c, parent));
+			}
+			classes.add(c);
+		}
+
+		// restrictions
+
+		final Map<OWLClass, List<OWLObjectProperty>> restrictions = new HashMap<>();
+		int propertyCount = 0;
+		for (OWLClass c : classes) {
+			if (random.nextDouble() < restrictionDensity) {
+				final OWLObjectProperty p = factory.getOWLObjectProperty(IRI.create(ONTOLOGY_IRI + "#p" + propertyCount++));
+				axioms.add(factory.getOWLDeclarationAxiom(p));
+				axioms.add(factory.getOWLSubObjectPropertyOfAxiom(p, relation));
+				final OWLClassExpression restriction = random.nextBoolean() ?
+						factory.getOWLObjectMinCardinality(1, p, factory.getOWLThing()) :
+						factory.getOWLObjectSomeValuesFrom(p, factory.getOWLThing());
+				axioms.add(factory.getOWLSubClassOfAxiom(c, restriction));
+				restrictions.computeIfAbsent(c, k -> new ArrayList<>()).add(p);
+			}
+		}
+
+		// individuals (satisfying the restrictions of their types)
+
+		final List<OWLNamedIndividual> individuals = new ArrayList<>();
+		for (int i = 0; i < individualCount; i++) {
+			individuals.add(factory.getOWLNamedIndividual(IRI.create(ONTOLOGY_IRI + "#i" + i)));
+		}
+		for (OWLNamedIndividual individual : individuals) {
+			axioms.add(factory.getOWLDeclarationAxiom(individual));
+			OWLClass c = classes.get(random.nextInt(classes.size()));
+			axioms.add(factory.getOWLClassAssertionAxiom(c, individual));
+			for (; c != null; c = parents.get(c)) {
+				for (OWLObjectProperty p : restrictions.getOrDefault(c, List.of())) {
+					final OWLNamedIndividual target = individuals.get(random.nextInt(individuals.size()));
+					axioms.add(factory.getOWLObjectPropertyAssertionAxiom(p, individual, target));
+				}
+			}
+		}
+
+		// unsatisfiable classes
+
+		final int unsatCount = (int) Math.round(classCount * unsatisfiabilityRate);
+		if (unsatCount > 0) {
+			final OWLClass disjoint1 = factory.getOWLClass(IRI.create(ONTOLOGY_IRI + "#Disjoint1"));
+			final OWLClass disjoint2 = factory.getOWLClass(IRI.create(ONTOLOGY_IRI + "#Disjoint2"));
+			axioms.add(factory.getOWLDisjointClassesAxiom(disjoint1, disjoint2));
+			for (int i = 0; i < unsatCount; i++) {
+				final OWLClass u = factory.getOWLClass(IRI.create(ONTOLOGY_IRI + "#U" + i));
+				axioms.add(factory.getOWLDeclarationAxiom(u));
+				axioms.add(factory.getOWLSubClassOfAxiom(u, classes.get(random.nextInt(classes.size()))));
+				axioms.add(factory.getOWLSubClassOfAxiom(u, disjoint1));
+				axioms.add(factory.getOWLSubClassOfAxiom(u, disjoint2));
+			}
+		}
+
+		manager.addAxioms(ontology, axioms.stream());
+
+		// save the ontology and the catalog
+
+		final File ontologyFile = new File(folder, "synthetic/ontology.owl");
+		ontologyFile.getParentFile().mkdirs();
+		manager.saveOntology(ontology, new RDFXMLDocumentFormat(), IRI.create(ontologyFile));
+
+		final File catalogFile = new File(folder, "catalog.xml");
+		Files.writeString(catalogFile.toPath(),
+				"<?xml version=\"1.0\"?>\n" +
+				"<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\" prefer=\"public\">\n" +
+				"\t<rewriteURI uriStartString=\"" + BASE_IRI + "\" rewritePrefix=\"synthetic/\"/>\n" +
+				"</catalog>\n");
+		return catalogFile;
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.reason;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A trie of IRI prefixes that matches an IRI against all prefixes in a single pass over the IRI.
+ */
+public class IriPrefixTrie {
+
+	private static class Node {
+		final Map<Character, Node> children = new HashMap<>();
+		boolean terminal;
+	}
+
+	private final Node root = new Node();
+
+	private boolean empty = true;
+
+	/**
+	 * Creates a new IriPrefixTrie object
+	 *
+	 * @param prefixes the IRI prefixes to match
+	 */
+	public IriPrefixTrie(Collection<String> prefixes) {
+		prefixes.forEach(this::add);
+	}
+
+	/**
+	 * Adds the given prefix to the trie
+	 *
+	 * @param prefix an IRI prefix
+	 */
+	public void add(String prefix) {
+		Node node = root;
+		for (int i = 0; i < prefix.length(); i++) {
+			node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+		}
+		node.terminal = true;
+		empty = false;
+	}
+
+	/**
+	 * Whether the trie has no prefixes
+	 *
+	 * @return true if no prefix has been added
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Whether the given IRI starts with one of the prefixes in the trie
+	 *
+	 * @param iri the IRI to match (can be null)
+	 * @return true if the IRI starts with one of the prefixes
+	 */
+	public boolean matches(String iri) {
+		if (iri == null || empty) {
+			return false;
+		}
+		Node node = root;
+		for (int i = 0; i < iri.length(); i++) {
+			if (node.terminal) {
+				return true;
+			}
+			node = node.children.get(iri.charAt(i));
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.terminal;
+	}
+}
@@ -16,21 +16,38 @@
  */
 package io.opencaesar.owl.reason;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -42,6 +59,10 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
 import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.ontology.OntModelSpec;
 import org.apache.jena.ontology.Ontology;
@@ -54,12 +75,20 @@ import org.apache.jena.rdf.model.ResourceFactory;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.util.NodeUtils;
+import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.vocabulary.OWL;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
-import org.apache.log4j.Appender;
-import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -143,8 +172,15 @@ public class OwlReasonApp {
 		extensions.put("nq", new NQuadsDocumentFormat());
 	}
 	
+	private static final Comparator<Triple> TRIPLE_ORDER = Comparator
+			.comparing(Triple::getSubject, NodeUtils::compareRDFTerms)
+			.thenComparing(Triple::getPredicate, NodeUtils::compareRDFTerms)
+			.thenComparing(Triple::getObject, NodeUtils::compareRDFTerms);
+
 	private final Options options = new Options();
 
+	private IriPrefixTrie backbone;
+
 	/**
 	 * default input ontology file extension.
 	 */
@@ -159,6 +195,11 @@ public class OwlReasonApp {
 	 * default reasoner output explanation file extension.
 	 */
 	public static final String DEFAULT_EXPLANATION_FORMAT = "owl";
+
+	/**
+	 * default backbone iri prefix.
+	 */
+	public static final String DEFAULT_BACKBONE_IRI = "http://opencaesar.io/oml";
 	
 	private static class Options {
 		@Parameter(
@@ -241,8 +282,16 @@ public class OwlReasonApp {
 		
 		@Parameter(
 			names = {"--backbone-iri", "-b"},
-			description = "iri of backbone ontology")
-		private String backboneIri = "http://opencaesar.io/oml";
+			description = "iri prefix of a backbone or imported vocabulary to exclude from checks and entailments (http://opencaesar.io/oml by default, multiple)")
+		private List<String> backboneIris = new ArrayList<>();
+		{
+			backboneIris.add(DEFAULT_BACKBONE_IRI);
+		}
+		
+		@Parameter(
+			names = {"--parallelism", "-p"},
+			description = "max number of output ontologies to serialize concurrently (optional, default=number of processors)")
+		private int parallelism = Runtime.getRuntime().availableProcessors();
 		
 		@Parameter(
 			names = {"--indent", "-n"},
@@ -271,13 +320,23 @@ public class OwlReasonApp {
 		EnumSet<StatementType> statementTypes;
 	}
 
-	private static class Result {
+	static class Result {
 		public String name;
 		public String message;
 		public String explanation;
 	}
 
 	private final static Logger LOGGER = Logger.getLogger(OwlReasonApp.class);
+	
+	/*
+	 * Logger of per-class details (debug level, logged asynchronously per log4j.xml)
+	 */
+	private final static Logger CLASS_LOGGER = Logger.getLogger(OwlReasonApp.class.getName()+".classes");
+
+	/*
+	 * Min milliseconds between progress reports
+	 */
+	private static final long PROGRESS_INTERVAL = 500;
 	static {
         DOMConfigurator.configure(ClassLoader.getSystemClassLoader().getResource("log4j.xml"));
 	}
@@ -289,15 +348,13 @@ public class OwlReasonApp {
 	 */
 	public static void main(final String... args) throws Exception {
 		final OwlReasonApp app = new OwlReasonApp();
-		final JCommander builder = JCommander.newBuilder().addObject(app.options).build();
-		builder.parse(args);
+		final JCommander builder = app.parse(args);
 		if (app.options.help) {
 			builder.usage();
 			return;
 		}
 		if (app.options.debug) {
-			final Appender appender = LogManager.getRootLogger().getAppender("stdout");
-			((AppenderSkeleton) appender).setThreshold(Level.DEBUG);
+			LogManager.getRootLogger().setLevel(Level.DEBUG);
 		}
 		app.run();
 	}
@@ -307,6 +364,16 @@ public class OwlReasonApp {
 	 */
 	public OwlReasonApp() {
 	}
+
+	/*
+	 * Parses the given arguments into the options of this app.
+	 */
+	JCommander parse(final String... args) {
+		final JCommander builder = JCommander.newBuilder().addObject(options).build();
+		builder.parse(args);
+		backbone = new IriPrefixTrie(options.removeBackbone ? options.backboneIris : Collections.emptyList());
+		return builder;
+	}
 	
 	private void run() throws Exception {
 		LOGGER.info("=================================================================");
@@ -316,13 +383,7 @@ public class OwlReasonApp {
 	    	    	    
 	    // Create ontology manager.
 	    
-	    LOGGER.info("create ontology manager");
-	    final OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
-	    if (manager == null) {
-	    	throw new RuntimeException("couldn't create owl ontology manager");
-	    }
-	    LOGGER.debug("add location mappers");
-		manager.getIRIMappers().add((new XMLCatalogIRIMapper(new File(options.catalogPath), options.inputFileExtensions)));
+	    final OWLOntologyManager manager = createManager();
 
 	    // Get Pellete reasoner factory.
 
@@ -343,6 +404,17 @@ public class OwlReasonApp {
 		LOGGER.info("                          E N D");
 		LOGGER.info("=================================================================");
 	}
+
+	OWLOntologyManager createManager() throws IOException {
+	    LOGGER.info("create ontology manager");
+	    final OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+	    if (manager == null) {
+	    	throw new RuntimeException("couldn't create owl ontology manager");
+	    }
+	    LOGGER.debug("add location mappers");
+		manager.getIRIMappers().add((new XMLCatalogIRIMapper(new File(options.catalogPath), options.inputFileExtensions)));
+		return manager;
+	}
 	
 	private void createIrisFile(final OWLOntologyManager manager) {
 		if (options.outputOntologyIrisPath != null) {
@@ -427,18 +499,14 @@ public class OwlReasonApp {
 		    			
 		    // Iterate over specs and extract entailments.
 	
-		    for (Spec spec: options.specs) {
-		      String outputOntologyIri = spec.outputOntologyIri;
-		      EnumSet<StatementType> statementTypes = spec.statementTypes;
-		      extractAndSaveEntailments(kb, inputOntologyIri, outputOntologyIri, statementTypes, manager);
-		    }
+		    extractAndSaveEntailments(kb, inputOntologyIri, manager);
 	    } finally {
 		    // dispose
 		    reasoner.dispose();
 	    }
 	}
 
-	private List<Result> checkConsistency(String ontologyIri, OpenlletReasoner reasoner, PelletExplanation explanation, OWLDocumentFormat explanationFormat) throws Exception {
+	List<Result> checkConsistency(String ontologyIri, OpenlletReasoner reasoner, PelletExplanation explanation, OWLDocumentFormat explanationFormat) throws Exception {
     	LOGGER.info("test consistency on "+ontologyIri);
     	List<Result> results = new ArrayList<>();
     	Result result = new Result();
@@ -454,23 +522,24 @@ public class OwlReasonApp {
 	    return results;
 	}
 
-	private List<Result> checkSatisfiability(String ontologyIri, OpenlletReasoner reasoner, PelletExplanation explanation, OWLDocumentFormat explanationFormat) throws Exception {
+	List<Result> checkSatisfiability(String ontologyIri, OpenlletReasoner reasoner, PelletExplanation explanation, OWLDocumentFormat explanationFormat) throws Exception {
     	LOGGER.info("test satisfiability on "+ontologyIri);
     	List<Result> results = new ArrayList<>();
     	
-		Set<OWLClass> allClasses = reasoner.getRootOntology().classesInSignature(Imports.INCLUDED).collect(Collectors.toSet());
+		Set<OWLClass> allClasses = reasoner.getRootOntology().classesInSignature(Imports.INCLUDED)
+				.filter(c -> !c.isOWLNothing()) // owl:Nothing should not be checked
+				.filter(c -> !backbone.matches(c.getIRI().getIRIString()))
+				.collect(Collectors.toSet());
 		
 		int numOfClasses = allClasses.size();   	
     	LOGGER.info(numOfClasses+" total classes");
 
-    	int count = 0;
+    	ProgressReporter progress = new ProgressReporter(LOGGER, "checked satisfiability of", numOfClasses, PROGRESS_INTERVAL);
     	for (OWLClass klass : allClasses) {
-    		if (options.removeBackbone && klass.getIRI().getIRIString().startsWith(options.backboneIri))
-    			continue;
-    		if (klass.isOWLNothing()) // owl:Nothing should not be checked
-    			continue;
     		String className = klass.getIRI().getIRIString();
-    	    LOGGER.info(className+" "+ ++count+" of "+numOfClasses);
+    	    if (CLASS_LOGGER.isDebugEnabled()) {
+    	    	CLASS_LOGGER.debug(className);
+    	    }
 
     	    Result result = new Result();
     	    results.add(result);
@@ -480,12 +549,14 @@ public class OwlReasonApp {
     	    	result.message = "class "+className+" is insatisfiable";
     	    	result.explanation = options.omitExplanations ? "[omitted]" : createExplanationOntology(explanation.getUnsatisfiableExplanation(klass), explanationFormat);
     	    }
+    	    progress.step();
     	}
+    	progress.done();
 
     	return results;
 	}
 
-	private String createExplanationOntology(Set<OWLAxiom> axioms, OWLDocumentFormat format) throws Exception {
+	String createExplanationOntology(Set<OWLAxiom> axioms, OWLDocumentFormat format) throws Exception {
 	    OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
 	    if (manager == null ) {
 	    	throw new RuntimeException("couldn't create owl ontology manager");
@@ -536,29 +607,77 @@ public class OwlReasonApp {
         }
 	}
 	
-	private void extractAndSaveEntailments(KnowledgeBase kb, String inputOntologyIri, String outputOntologyIri, EnumSet<StatementType> statementTypes, OWLOntologyManager manager) throws Exception {
+	/*
+	 * Extracts the entailments of each spec one at a time (the knowledge base is not thread safe),
+	 * while the filtering and serialization of the extracted entailments are done concurrently.
+	 * The number of specs whose entailments are held in memory is bounded by the parallelism.
+	 */
+	private void extractAndSaveEntailments(KnowledgeBase kb, String inputOntologyIri, OWLOntologyManager manager) throws Exception {
+		final int parallelism = Math.max(1, Math.min(options.parallelism, options.specs.size()));
+		final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		final Semaphore permits = new Semaphore(parallelism);
+		final List<Future<Void>> futures = new ArrayList<>();
+		try {
+			for (Spec spec : options.specs) {
+				permits.acquire();
+				final Model entailments;
+				final File outputFile;
+				try {
+					entailments = extractEntailments(kb, spec.statementTypes);
+					outputFile = getOutputFile(spec.outputOntologyIri, manager);
+				} catch (Exception e) {
+					permits.release();
+					throw e;
+				}
+				futures.add(executor.submit(() -> {
+					try {
+						saveEntailments(entailments, inputOntologyIri, spec.outputOntologyIri, spec.statementTypes, outputFile);
+						return null;
+					} finally {
+						permits.release();
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Model extractEntailments(KnowledgeBase kb, EnumSet<StatementType> statementTypes) {
 		// Create extractor.
 	  
 		LOGGER.info("create extractor for "+statementTypes);
-		ModelExtractor extractor = new ModelExtractor(kb);
+		ModelExtractor extractor = createExtractor(kb);
 
 		// Extract entailments
 
 		LOGGER.info("extract entailments for "+statementTypes);
-		Model entailments = extractEntailments(extractor, statementTypes);
+		return extractEntailments(extractor, statementTypes);
+	}
 
+	private File getOutputFile(String outputOntologyIri, OWLOntologyManager manager) throws Exception {
+		// Create an empty OWLAPI Ontology to get the ontology document IRI
+
+		LOGGER.info("get output filename from location mapping");
+		OWLOntology empty = manager.createOntology(IRI.create(outputOntologyIri+"."+options.outputFileExtension));
+		String filename = URI.create(manager.getOntologyDocumentIRI(empty).toString()).getPath();
+		manager.removeOntology(empty);
+		return new File(filename);
+	}
+
+	private void saveEntailments(Model entailments, String inputOntologyIri, String outputOntologyIri, EnumSet<StatementType> statementTypes, File outputFile) throws Exception {
 		// Remove trivial axioms involving owl:Thing and owl:Nothing.
 
 		LOGGER.info("remove trivial entailments for "+statementTypes);
 		entailments = removeTrivial(entailments, options.removeUnsats);
 
-		// Remove backbone entailments.
-
-		LOGGER.info("remove backbone entailments for "+statementTypes);
-		if (options.removeBackbone) {
-			entailments = removeBackbone(entailments, options.backboneIri);
-		}
-
 		// Create Jena ontology model for results.
 		  
 		LOGGER.info("create jena ontology model for "+statementTypes);
@@ -570,33 +689,180 @@ public class OwlReasonApp {
 		Ontology outputOntology = model.createOntology(outputOntologyIri);
 		outputOntology.addImport(ResourceFactory.createResource(inputOntologyIri));
 		outputOntology.addComment("Generated by Owl Reason "+ getAppVersion(), null);
-		outputOntology.addVersionInfo(""+Instant.now().getEpochSecond());
-
-		// Create an empty OWLAPI Ontology to get the ontology document IRI
 
-		LOGGER.info("get output filename from location mapping");
-		OWLOntology empty = manager.createOntology(IRI.create(outputOntologyIri+"."+options.outputFileExtension));
-		String filename = URI.create(manager.getOntologyDocumentIRI(empty).toString()).getPath();
-		manager.removeOntology(empty);
+		// Serialize Jena ontology model unless the output has not changed.
 		  
-		// Open output stream.
-
-		LOGGER.info("open output stream "+filename);
-		File outputFile = new File(filename);
+		String filename = outputFile.getPath();
+		LOGGER.info("serialize "+entailments.size()+" entailments to "+filename);
 		//noinspection ResultOfMethodCallIgnored
 		outputFile.getParentFile().mkdirs();
-		FileOutputStream outputFileStream = new FileOutputStream(outputFile);
-		  
-		// Serialize Jena ontology model to output stream.
-		  
-		LOGGER.info("serialize "+entailments.size()+" entailments to "+filename);
 		Lang lang = RDFLanguages.fileExtToLang(options.outputFileExtension);
 
-		model.write(outputFileStream, lang.getName());
-		LOGGER.info("finished serializing "+filename);
+		if (saveIfChanged(model, outputOntology, outputFile, lang)) {
+			LOGGER.info("finished serializing "+filename);
+		} else {
+			LOGGER.info("entailments unchanged, kept "+filename);
+		}
+	}
+
+	/*
+	 * Serializes the model to a temp file next to the output file, stamped with the version
+	 * of the existing output file (if any). When the result is identical to the existing file,
+	 * the file is left untouched so its timestamp does not trigger downstream tasks. Otherwise,
+	 * the model is stamped with a new version and the temp file replaces the output file.
+	 * The bytes are compared only when they are canonical (see writeSorted); otherwise, the
+	 * existing file is parsed and compared to the model as a graph (up to blank node labels).
+	 */
+	private boolean saveIfChanged(OntModel model, Ontology ontology, File outputFile, Lang lang) throws IOException {
+		String previousVersion = outputFile.exists() ? getVersionInfo(outputFile, ontology.getURI(), lang) : null;
+		String version = (previousVersion != null) ? previousVersion : ""+Instant.now().getEpochSecond();
+		ontology.addVersionInfo(version);
+
+		File tempFile = File.createTempFile(outputFile.getName()+".", ".tmp", outputFile.getParentFile());
+		try {
+			writeSorted(model, tempFile, lang);
+			if (previousVersion != null) {
+				boolean same = isCanonical(model.getGraph(), lang)
+						? isSameContent(tempFile, outputFile)
+						: isSameGraph(model.getGraph(), outputFile, lang);
+				if (same) {
+					return false;
+				}
+				ontology.removeVersionInfo(previousVersion);
+				ontology.addVersionInfo(""+Instant.now().getEpochSecond());
+				writeSorted(model, tempFile, lang);
+			}
+			try {
+				Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		} finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+	}
+
+	/*
+	 * Writes the model's triples in a deterministic order (by subject, predicate, object) so that
+	 * the same entailments always produce the same bytes. Languages without a streaming writer
+	 * (e.g., RDF/XML) fall back to the regular model writer. Blank nodes get new labels in every
+	 * run, so the bytes of graphs with blank nodes are not canonical (see isCanonical).
+	 */
+	private void writeSorted(Model model, File file, Lang lang) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+			RDFFormat format = StreamRDFWriter.defaultSerialization(lang);
+			if (format == null) {
+				RDFDataMgr.write(out, model, lang);
+				return;
+			}
+			StreamRDF stream = StreamRDFWriter.getWriterStream(out, format);
+			stream.start();
+			new TreeMap<>(model.getNsPrefixMap()).forEach(stream::prefix);
+			List<Triple> triples = model.getGraph().find(Node.ANY, Node.ANY, Node.ANY).toList();
+			triples.sort(TRIPLE_ORDER);
+			triples.forEach(stream::triple);
+			stream.finish();
+		}
+	}
+
+	/*
+	 * Whether writeSorted writes the same bytes for the same triples, i.e., the language has a
+	 * streaming writer and the graph has no blank nodes.
+	 */
+	private static boolean isCanonical(Graph graph, Lang lang) {
+		if (StreamRDFWriter.defaultSerialization(lang) == null) {
+			return false;
+		}
+		ExtendedIterator<Triple> triples = graph.find(Node.ANY, Node.ANY, Node.ANY);
+		try {
+			while (triples.hasNext()) {
+				Triple triple = triples.next();
+				if (triple.getSubject().isBlank() || triple.getObject().isBlank()) {
+					return false;
+				}
+			}
+			return true;
+		} finally {
+			triples.close();
+		}
+	}
+
+	/*
+	 * Whether the given graph is isomorphic to the graph of the given file (false if the file
+	 * cannot be read).
+	 */
+	private static boolean isSameGraph(Graph graph, File file, Lang lang) {
+		try {
+			Graph existing = GraphFactory.createDefaultGraph();
+			RDFParser.source(file.toPath()).lang(lang).parse(existing);
+			return graph.isIsomorphicWith(existing);
+		} catch (RiotException e) {
+			LOGGER.debug("could not read "+file, e);
+			return false;
+		}
+	}
+
+	/*
+	 * Returns the owl:versionInfo of the given ontology in an existing output file, or null
+	 * if the file cannot be read or has no such version.
+	 */
+	private String getVersionInfo(File file, String ontologyIri, Lang lang) {
+		final Node subject = NodeFactory.createURI(ontologyIri);
+		final String[] version = new String[1];
+		try {
+			RDFParser.source(file.toPath()).lang(lang).parse(new StreamRDFBase() {
+				@Override
+				public void triple(Triple triple) {
+					if (triple.getSubject().equals(subject) && triple.getPredicate().equals(OWL.versionInfo.asNode()) && triple.getObject().isLiteral()) {
+						version[0] = triple.getObject().getLiteralLexicalForm();
+					}
+				}
+			});
+		} catch (RiotException e) {
+			LOGGER.debug("could not read version of "+file, e);
+			return null;
+		}
+		return version[0];
 	}
 
-	private Result checkMinCardinalities(final String ontologyIri, final KnowledgeBase kb, final OWLOntologyManager manager, OWLDocumentFormat explanationFormat) throws Exception {
+	/*
+	 * Compares the content digests of the two given files.
+	 */
+	private static boolean isSameContent(File file1, File file2) throws IOException {
+		if (file1.length() != file2.length()) {
+			return false;
+		}
+		return MessageDigest.isEqual(digest(file1), digest(file2));
+	}
+
+	private static byte[] digest(File file) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			try (InputStream in = new DigestInputStream(new BufferedInputStream(new FileInputStream(file)), digest)) {
+				byte[] buffer = new byte[8192];
+				while (in.read(buffer) != -1) {
+					// read through to update the digest
+				}
+			}
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/*
+	 * Creates an extractor that filters out backbone entailments while extracting.
+	 */
+	ModelExtractor createExtractor(KnowledgeBase kb) {
+		ModelExtractor extractor = new ModelExtractor(kb);
+		if (!backbone.isEmpty()) {
+			extractor.setFilter(t -> isBackbone(t, backbone));
+		}
+		return extractor;
+	}
+
+	Result checkMinCardinalities(final String ontologyIri, final KnowledgeBase kb, final OWLOntologyManager manager, OWLDocumentFormat explanationFormat) throws Exception {
     	LOGGER.info("test min cardinality restrictions on "+ontologyIri);
 
     	var result = new Result(); 
@@ -733,6 +999,8 @@ public class OwlReasonApp {
 		var axioms = new ArrayList<OWLSubClassOfAxiom>();
 		for (var ontology : manager.getOntologies()) {
 			for (var clazz : ontology.getClassesInSignature()) {
+				if (backbone.matches(clazz.getIRI().getIRIString()))
+					continue;
 				for (var axiom : ontology.getSubClassAxiomsForSubClass(clazz)) {
 					var exp = axiom.getSuperClass().getClassExpressionType();
 					if (exp == ClassExpressionType.OBJECT_MIN_CARDINALITY ||
@@ -749,7 +1017,7 @@ public class OwlReasonApp {
 		return axioms;
 	}
 	
-	private Model extractEntailments(ModelExtractor extractor, EnumSet<StatementType> types) {
+	Model extractEntailments(ModelExtractor extractor, EnumSet<StatementType> types) {
 	    // Extract entailments.
 	    extractor.setSelector(types);
 	    Model result = extractor.extractModel();
@@ -760,7 +1028,7 @@ public class OwlReasonApp {
 	/*
 	 *  Remove trivial entailments involving owl:Thing, owl:Nothing, owl:topObjectProperty, owl:topDataProperty
 	 */
-	private Model removeTrivial(Model entailments, boolean removeUnsats) {
+	Model removeTrivial(Model entailments, boolean removeUnsats) {
 		StmtIterator iterator = entailments.listStatements();
 		List<Statement> trivial = new ArrayList<>();
 	    while (iterator.hasNext()) {
@@ -779,25 +1047,19 @@ public class OwlReasonApp {
 	}
 	
 	/*
-	 * Remove entailments involving backbone items.
+	 * Whether the triple involves backbone items: a backbone subject, or a subclass/subproperty
+	 * axiom whose object is on the backbone.
 	 */
-	private Model removeBackbone(Model entailments, String pattern) {
-		StmtIterator iterator = entailments.listStatements();
-		List<Statement> backbone = new ArrayList<>();
-	    while (iterator.hasNext()) {
-	    	Statement statement = iterator.next();
-	    	Property predicate = statement.getPredicate();
-	    	RDFNode object = statement.getObject();
-	    	if (object instanceof Resource) {
-	    		String objectIri = ((Resource)object).getURI();
-		        if ((predicate.equals(RDFS.subClassOf) || predicate.equals(RDFS.subPropertyOf)) && objectIri.startsWith(pattern)) {
-		        	backbone.add(statement);
-		        }
-	    	}
-	    }
-	    entailments.remove(backbone);
-	    LOGGER.info("removed "+backbone.size()+" backbone axioms");
-	    return entailments;
+	static boolean isBackbone(Triple triple, IriPrefixTrie backbone) {
+		Node subject = triple.getSubject();
+		if (subject.isURI() && backbone.matches(subject.getURI())) {
+			return true;
+		}
+		Node predicate = triple.getPredicate();
+		Node object = triple.getObject();
+		return object.isURI() &&
+			(predicate.equals(RDFS.subClassOf.asNode()) || predicate.equals(RDFS.subPropertyOf.asNode())) &&
+			backbone.matches(object.getURI());
 	}
 	
 	/**
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2019 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.reason;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A rate-limited reporter of the progress of a long loop. It logs the count, throughput and ETA
+ * at most once per interval, so the cost per step is a counter increment and a clock read.
+ * This class is not thread safe.
+ */
+public class ProgressReporter {
+
+	private final Logger logger;
+
+	private final String task;
+
+	private final long total;
+
+	private final long intervalNanos;
+
+	private final long start;
+
+	private long last;
+
+	private long count;
+
+	/**
+	 * Creates a new ProgressReporter object
+	 *
+	 * @param logger the logger to report progress to
+	 * @param task the name of the task
+	 * @param total the total number of steps
+	 * @param intervalMillis the minimum number of milliseconds between reports
+	 */
+	public ProgressReporter(Logger logger, String task, long total, long intervalMillis) {
+		this.logger = logger;
+		this.task = task;
+		this.total = total;
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+		this.start = System.nanoTime();
+		this.last = start;
+	}
+
+	/**
+	 * Records a finished step and reports progress if the interval has elapsed
+	 *
+	 * @return the number of finished steps
+	 */
+	public long step() {
+		count++;
+		long now = System.nanoTime();
+		if (now - last >= intervalNanos) {
+			last = now;
+			report(now);
+		}
+		return count;
+	}
+
+	/**
+	 * Reports the final progress
+	 */
+	public void done() {
+		report(System.nanoTime());
+	}
+
+	private void report(long now) {
+		double seconds = (now - start) / 1e9;
+		double rate = (seconds > 0) ? count / seconds : 0;
+		String eta = (rate > 0) ? String.format("%.1fs", (total - count) / rate) : "?";
+		logger.info(String.format("%s %d of %d (%.1f/s, ETA %s)", task, count, total, rate, eta));
+	}
+}
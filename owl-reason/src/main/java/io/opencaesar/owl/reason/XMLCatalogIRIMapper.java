@@ -2,11 +2,10 @@ package io.opencaesar.owl.reason;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URI;
 import java.util.List;
 
-import org.apache.xml.resolver.Catalog;
-import org.apache.xml.resolver.CatalogManager;
+import io.opencaesar.owl.catalog.OwlCatalog;
+
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntologyIRIMapper;
 
@@ -17,14 +16,9 @@ import org.semanticweb.owlapi.model.OWLOntologyIRIMapper;
 public class XMLCatalogIRIMapper implements OWLOntologyIRIMapper {
 
 	/**
-	 * An Oasis XML Catalog
-	 */
-	private final Catalog catalog;
-
-	/**
-	 * Liat of file extensions
+	 * An Owl Catalog (of an Oasis XML Catalog)
 	 */
-	private final List<String> extensions;
+	private final OwlCatalog catalog;
 
 	/**
 	 * Constructor
@@ -33,33 +27,16 @@ public class XMLCatalogIRIMapper implements OWLOntologyIRIMapper {
 	 * @throws IOException error
 	 */
 	public XMLCatalogIRIMapper(File catalogFile, List<String> extensions) throws IOException {
-		this.extensions = extensions;
 		if (null == catalogFile || !catalogFile.isFile() || !catalogFile.isAbsolute())
 			throw new IllegalArgumentException("The catalogFile must exist and be an absolute path: " + catalogFile);
-		CatalogManager manager = new CatalogManager();
-		manager.setUseStaticCatalog(false);
-		manager.setIgnoreMissingProperties(true);
-		catalog = manager.getCatalog();
-		catalog.setupReaders();
-		catalog.parseCatalog(catalogFile.toURI().toURL());
+		catalog = OwlCatalog.create(catalogFile, extensions);
 	}
 
 	@Override
 	public IRI getDocumentIRI(IRI originalIri) {
 		try {
 			String documentUri = catalog.resolveURI(originalIri.toString());
-			if (documentUri != null && documentUri.startsWith("file:")) {
-				File f = new File(new URI(documentUri));
-				if (!f.exists() || !f.isFile()) {
-					for ( String ext : extensions ) {
-						String fileWithExtensionPath = f.toString()+"." + ext;
-						File f_ext = new File(fileWithExtensionPath);
-						if (f_ext.exists() && f_ext.isFile())
-							return IRI.create(documentUri+"."+ext);
-					}
-				}
-			}
-			return IRI.create(documentUri);
+			return (documentUri != null) ? IRI.create(documentUri) : null;
 		} catch (Exception e) {
 			System.out.println(e);
 			return null;
@@ -25,10 +25,13 @@ import java.net.Authenticator;
 import java.net.ConnectException;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import io.opencaesar.owl.catalog.OwlCatalog;
+
 import org.apache.jena.atlas.web.HttpException;
 import org.apache.jena.http.HttpEnv;
 import org.apache.jena.query.Dataset;
@@ -60,6 +63,12 @@ public class OwlSaveApp {
      * Allowed input file extensions for ontologies.
      */
     private final static String DEFAULT_EXTENSION = "ttl";
+
+    /*
+     * The namespace of the graphs that OwlLoad adds to a dataset for its own use (e.g., its staging graphs),
+     * which are not ontologies
+     */
+    private final static String OWL_LOAD_NAMESPACE = "http://opencaesar.io/owl-load/";
     
     @Parameter(
             names = {"--endpoint-url", "-e"},
@@ -178,7 +187,7 @@ public class OwlSaveApp {
 		if (!catalogFile.exists() ) {
 			createOutputCatalog(catalogFile);
 		}
-        OwlCatalog catalog = OwlCatalog.create(new File(catalogPath));
+        OwlCatalog catalog = OwlCatalog.create(new File(catalogPath), Collections.emptyList());
 
         try {
             // Fetches the dataset
@@ -189,9 +198,16 @@ public class OwlSaveApp {
             int count = 0;
             Iterator<String> resources = dataset.listNames();
             while (resources.hasNext()) {
-            	count++;
             	String uri = resources.next();
+            	if (uri.startsWith(OWL_LOAD_NAMESPACE)) {
+            		LOGGER.info("Skipping "+uri);
+            		continue;
+            	}
+            	count++;
             	String resolved = catalog.resolveURI(uri);
+            	if (resolved == null) {
+            		System.out.println(uri+" cannot be resolved");
+            	}
             	
                 File dst = new File(new URI(resolved+"."+fileExtension));
                 dst.getParentFile().mkdirs();
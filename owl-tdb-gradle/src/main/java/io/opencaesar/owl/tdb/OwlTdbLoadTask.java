@@ -114,6 +114,42 @@ public abstract class OwlTdbLoadTask extends DefaultTask {
 	@Input
 	public abstract Property<Boolean> getLoadToDefaultGraph();
 
+	/**
+	 * Whether to serve the default graph as the union of the named graphs instead of copying them to it (Optional, default is false).
+	 *
+	 * @return Boolean Property
+	 */
+	@Optional
+	@Input
+	public abstract Property<Boolean> getUnionDefaultGraph();
+
+	/**
+	 * Whether to use a TDB2 dataset instead of a TDB1 one (Optional, default is false).
+	 *
+	 * @return Boolean Property
+	 */
+	@Optional
+	@Input
+	public abstract Property<Boolean> getTdb2();
+
+	/**
+	 * The TDB2 bulk loader for full loads (Optional, default is parallel, options: parallel, phased, sequential, basic).
+	 *
+	 * @return String Property
+	 */
+	@Optional
+	@Input
+	public abstract Property<String> getLoader();
+
+	/**
+	 * The number of threads parsing the files of the graphs that are loaded in a transaction (Optional, default is the number of processors).
+	 *
+	 * @return Integer Property
+	 */
+	@Optional
+	@Input
+	public abstract Property<Integer> getParallelism();
+
 	/**
 	 * Whether to load the dataset incrementally
 	 * 
@@ -185,6 +221,24 @@ public abstract class OwlTdbLoadTask extends DefaultTask {
 			args.add("-dg");
 			args.add(getLoadToDefaultGraph().get() ? "true" : "false");
 		}
+		if (getUnionDefaultGraph().isPresent()) {
+			if (getUnionDefaultGraph().get()) {
+				args.add("-udg");
+			}
+		}
+		if (getTdb2().isPresent()) {
+			if (getTdb2().get()) {
+				args.add("-t2");
+			}
+		}
+		if (getLoader().isPresent()) {
+			args.add("-ld");
+			args.add(getLoader().get());
+		}
+		if (getParallelism().isPresent()) {
+			args.add("-pl");
+			args.add(getParallelism().get().toString());
+		}
 		if (getDebug().isPresent()) {
 			if ( getDebug().get()) {
 				args.add("-d");
@@ -67,6 +67,15 @@ public abstract class OwlTdbSaveTask extends DefaultTask {
 	@Input
 	public abstract Property<String> getFileExtension();
 
+	/**
+	 * Whether the dataset is a TDB2 dataset instead of a TDB1 one (Optional, default is false).
+	 *
+	 * @return Boolean Property
+	 */
+	@Optional
+	@Input
+	public abstract Property<Boolean> getTdb2();
+
 	/**
 	 * The optional debug property (default is false).
 	 *
@@ -99,6 +108,11 @@ public abstract class OwlTdbSaveTask extends DefaultTask {
 			args.add("-e");
 			args.add(getFileExtension().get());
 		}
+		if (getTdb2().isPresent()) {
+			if (getTdb2().get()) {
+				args.add("-t2");
+			}
+		}
 		if (getDebug().isPresent()) {
 			if ( getDebug().get()) {
 				args.add("-d");
@@ -22,28 +22,43 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import io.opencaesar.owl.catalog.CatalogWatcher;
+import io.opencaesar.owl.catalog.OwlCatalog;
+
+import org.apache.jena.dboe.base.file.ProcessFileLock;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.ReadWrite;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.system.Txn;
 import org.apache.jena.tdb.TDBFactory;
 import org.apache.jena.tdb.TDBLoader;
 import org.apache.jena.tdb.base.file.Location;
-import org.apache.jena.tdb.store.GraphTDB;
 import org.apache.jena.tdb.sys.TDBInternal;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.loader.base.LoaderOps;
 import org.apache.log4j.Appender;
 import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.Level;
@@ -72,6 +87,13 @@ public class OwlTdbApp {
 		save
 	}
 
+	enum Loader {
+		parallel,
+		phased,
+		sequential,
+		basic
+	}
+
 	@Parameter(
 			names = {"--command", "-cm"},
 			description = "An enumerated command: load or save (Required)",
@@ -128,6 +150,37 @@ public class OwlTdbApp {
 			arity = 1)
 	private boolean loadToDefaultGraph = true;
 
+	@Parameter(
+			names = {"--union-default-graph", "-udg"},
+			description = "Serve the default graph as the union of the named graphs (with unionDefaultGraph set by readers) instead of copying them to it (relevant when loading to both named and default graphs) (Optional)",
+			required = false)
+	private boolean unionDefaultGraph;
+
+	@Parameter(
+			names = {"--tdb2", "-t2"},
+			description = "Use a TDB2 dataset instead of a TDB1 one (Optional)",
+			required = false)
+	private boolean tdb2;
+
+	@Parameter(
+			names = {"--loader", "-ld"},
+			description = "The TDB2 bulk loader for full loads: parallel, phased, sequential or basic (relevant when command is load and tdb2 is used) (Optional, default: parallel)",
+			converter = LoaderConverter.class,
+			required = false)
+	private Loader loader = Loader.parallel;
+
+	@Parameter(
+			names = {"--parallelism", "-pl"},
+			description = "Number of threads parsing the files of the graphs that are loaded in a transaction (relevant when command is load) (Optional, default: number of processors)",
+			required = false)
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	@Parameter(
+			names = {"--watch", "-w"},
+			description = "Keep running and load the changed graphs whenever files in the catalog's folders change (relevant when command is load) (Optional)",
+			required = false)
+	private boolean watch;
+
 	@Parameter(
 			names = {"-d", "--debug"},
 			description = "Shows debug logging statements")
@@ -141,6 +194,11 @@ public class OwlTdbApp {
 
 	private final static Logger LOGGER = Logger.getLogger(OwlTdbApp.class);
 
+	/*
+	 * The time without file changes after which the changes are loaded in watch mode
+	 */
+	private static final long WATCH_QUIET_MILLIS = 250;
+
 	static {
 		DOMConfigurator.configure(ClassLoader.getSystemClassLoader().getResource("log4j.xml"));
 	}
@@ -192,7 +250,7 @@ public class OwlTdbApp {
 			((AppenderSkeleton) appender).setThreshold(Level.DEBUG);
 		}
 		if (app.command == Command.load) {
-			app.load(deltas);
+			app.start(deltas);
 		} else if (app.command == Command.save) {
 			app.save();
 		}
@@ -204,7 +262,31 @@ public class OwlTdbApp {
 	public OwlTdbApp() {
 	}
 
-	private void load(Collection<File> deltas) throws Exception {
+	private void start(Collection<File> deltas) throws Exception {
+		// Create Owl Catalog (kept in memory while watching)
+		OwlCatalog catalog = OwlCatalog.create(new File(catalogPath), fileExtensions);
+
+		load(catalog, deltas);
+
+		if (watch) {
+			watch(catalog);
+		}
+	}
+
+	private void watch(OwlCatalog catalog) throws Exception {
+		try (var watcher = new CatalogWatcher(catalog, fileExtensions, WATCH_QUIET_MILLIS)) {
+			System.out.println("Watching for changes (press Ctrl+C to stop)");
+			while (true) {
+				var changes = watcher.take();
+				LOGGER.info("found " + changes.size() + " changed file(s)");
+				// files may have been added or removed
+				catalog.refresh();
+				load(catalog, changes);
+			}
+		}
+	}
+
+	private void load(OwlCatalog catalog, Collection<File> deltas) throws Exception {
 		LOGGER.info("=================================================================");
 		LOGGER.info("						S T A R T");
 		LOGGER.info("					 OWL TDB Load " + getAppVersion());
@@ -216,11 +298,14 @@ public class OwlTdbApp {
 		LOGGER.info(("IRIs Path = " + irisPath));
 		LOGGER.info(("Load to Default Graph = " + loadToDefaultGraph));
 		LOGGER.info(("Load to Named Graphs = " + loadToNamedGraphs));
+		LOGGER.info(("Union Default Graph = " + unionDefaultGraph));
+		LOGGER.info(("TDB2 = " + tdb2));
+		if (tdb2) {
+			LOGGER.info(("Loader = " + loader));
+		}
+		LOGGER.info(("Parallelism = " + parallelism));
 
 		if (deltas == null || deltas.size() > 0) {
-			// Create Owl Catalog
-			OwlCatalog catalog = OwlCatalog.create(new File(catalogPath), fileExtensions);
-	
 			// Get relevant Iris
 			var relevant_iris = getRelevantIris(catalog); 
 			LOGGER.info("found " + relevant_iris.size() + " relevant iris");
@@ -230,67 +315,130 @@ public class OwlTdbApp {
 			LOGGER.info("found " + changed_iris.size() + " changed iris "
 					+ ((deltas != null) ? "from mapping " + deltas.size() + " deltas" : "from relevant iris"));
 			
-			// Create the dataset
-			Dataset dataset = null;
+			if (tdb2) {
+				// a full load uses a bulk loader, and an incremental one uses a transaction
+				loadToTdb2(catalog, relevant_iris, changed_iris, deltas == null);
+			} else {
+				loadToTdb1(catalog, relevant_iris, changed_iris);
+			}
+		}
+		
+		LOGGER.info("=================================================================");
+		LOGGER.info("						  E N D");
+		LOGGER.info("=================================================================");
+	}
+
+	private void loadToTdb1(OwlCatalog catalog, List<String> relevant_iris, Collection<String> changed_iris) {
+		// Create the dataset
+		Dataset dataset = null;
+
+		// Load the dataset
+		try {
+			dataset = createDataset();
+			dataset.begin(ReadWrite.WRITE);
+
+			if (loadToNamedGraphs) {
+				// Get Loaded Iris
+				var loaded_iris = getLoadedNamedGraphs(dataset);
+				LOGGER.info("found " + loaded_iris.size() + " loaded iris");
 	
-			// Load the dataset
-			try {
-				dataset = createDataset();
-				dataset.begin(ReadWrite.WRITE);
+				var to_load_iris = getIrisToLoad(relevant_iris, changed_iris, loaded_iris);
+				
+				loadGraphs(dataset, catalog, to_load_iris, true);
+				for (var iri : loaded_iris) {
+					removeNamedGraph(dataset, iri);
+				}
+				System.out.println("Loaded "+to_load_iris.size()+" owl file(s), unloaded "+loaded_iris.size()+" owl file(s)");
+				
+				if (loadToDefaultGraph) {
+					loadToDefaultGraph(dataset);
+				}
+			} else if (loadToDefaultGraph) {
+				if (!changed_iris.isEmpty()) {
+					loadToDefaultGraph(dataset, catalog, relevant_iris);
+					System.out.println("Loaded "+relevant_iris.size()+" owl file(s) to default graph");
+				} else {
+					System.out.println("Loaded no owl files to default graph");
+				}
+			} 
+		} catch (Exception e) {
+			LOGGER.error(e);
+		} finally {
+			if (dataset != null) {
+				dataset.commit();
+				dataset.end();
+				dataset.close();
+				releaseDataset(dataset);
+			}
+			LOGGER.info("closing the dataset");
+		}
+	}
 
-				if (loadToNamedGraphs) {
-					// Get Loaded Iris
-					var loaded_iris = getLoadedNamedGraphs(dataset);
-					LOGGER.info("found " + loaded_iris.size() + " loaded iris");
-		
-					List<String> to_load_iris = new ArrayList<>();  
-					
-					relevant_iris.stream().forEach(iri -> {
-						if (!loaded_iris.contains(iri)) {
-							to_load_iris.add(iri);
-						} else if (changed_iris.contains(iri)) {
-							to_load_iris.add(iri);
-							loaded_iris.remove(iri);
-						} else {
-							loaded_iris.remove(iri);
-						}
+	private void loadToTdb2(OwlCatalog catalog, List<String> relevant_iris, Collection<String> changed_iris, boolean bulk) {
+		// Create the dataset
+		Dataset dataset = null;
+
+		// Load the dataset
+		try {
+			final Dataset ds = dataset = createDataset();
+
+			if (loadToNamedGraphs) {
+				// Get Loaded Iris
+				var loaded_iris = Txn.calculateRead(ds, () -> getLoadedNamedGraphs(ds));
+				LOGGER.info("found " + loaded_iris.size() + " loaded iris");
+
+				var reloaded_iris = new HashSet<>(loaded_iris);
+				var to_load_iris = getIrisToLoad(relevant_iris, changed_iris, loaded_iris);
+				reloaded_iris.retainAll(to_load_iris);
+
+				if (bulk) {
+					// the bulk loader only adds, so the changed graphs are removed first
+					Txn.executeWrite(ds, () -> {
+						reloaded_iris.forEach(iri -> removeNamedGraph(ds, iri));
+						loaded_iris.forEach(iri -> removeNamedGraph(ds, iri));
 					});
-					
-					for (var iri : to_load_iris) {
-						loadNamedGraph(dataset, catalog, iri);
-					}
-					for (var iri : loaded_iris) {
-						removeNamedGraph(dataset, iri);
-					}
-					System.out.println("Loaded "+to_load_iris.size()+" owl file(s), unloaded "+loaded_iris.size()+" owl file(s)");
-					
-					if (loadToDefaultGraph) {
-						loadToDefaultGraph(dataset);
-					}
-				} else if (loadToDefaultGraph) {
-					if (!changed_iris.isEmpty()) {
-						loadToDefaultGraph(dataset, catalog, relevant_iris);
-						System.out.println("Loaded "+relevant_iris.size()+" owl file(s) to default graph");
+					bulkLoad(ds, catalog, to_load_iris, true);
+				} else {
+					Txn.executeWrite(ds, () -> {
+						loadGraphs(ds, catalog, to_load_iris, true);
+						loaded_iris.forEach(iri -> removeNamedGraph(ds, iri));
+					});
+				}
+				System.out.println("Loaded "+to_load_iris.size()+" owl file(s), unloaded "+loaded_iris.size()+" owl file(s)");
+
+				if (loadToDefaultGraph) {
+					// unlike with TDB1, setting the default graph of TDB2 adds to it
+					Txn.executeWrite(ds, () -> {
+						ds.asDatasetGraph().getDefaultGraph().clear();
+						loadToDefaultGraph(ds);
+					});
+				}
+			} else if (loadToDefaultGraph) {
+				if (!changed_iris.isEmpty()) {
+					LOGGER.info("Loading to default graph");
+					if (bulk) {
+						Txn.executeWrite(ds, () -> ds.asDatasetGraph().getDefaultGraph().clear());
+						bulkLoad(ds, catalog, relevant_iris, false);
 					} else {
-						System.out.println("Loaded no owl files to default graph");
+						Txn.executeWrite(ds, () -> {
+							ds.asDatasetGraph().getDefaultGraph().clear();
+							loadGraphs(ds, catalog, relevant_iris, false);
+						});
 					}
-				} 
-			} catch (Exception e) {
-				LOGGER.error(e);
-			} finally {
-				if (dataset != null) {
-					dataset.commit();
-					dataset.end();
-					dataset.close();
-					TDBFactory.release(dataset);
+					System.out.println("Loaded "+relevant_iris.size()+" owl file(s) to default graph");
+				} else {
+					System.out.println("Loaded no owl files to default graph");
 				}
-				LOGGER.info("closing the dataset");
 			}
+		} catch (Exception e) {
+			LOGGER.error(e);
+		} finally {
+			if (dataset != null) {
+				dataset.close();
+				releaseDataset(dataset);
+			}
+			LOGGER.info("closing the dataset");
 		}
-		
-		LOGGER.info("=================================================================");
-		LOGGER.info("						  E N D");
-		LOGGER.info("=================================================================");
 	}
 
 	private void save() throws Exception {
@@ -345,7 +493,7 @@ public class OwlTdbApp {
 			if (dataset != null) {
 				dataset.end();
 				dataset.close();
-				TDBFactory.release(dataset);
+				releaseDataset(dataset);
 			}
 			LOGGER.info("closing the dataset");
 		}
@@ -420,7 +568,7 @@ public class OwlTdbApp {
 	private Dataset createDataset() {
 		LOGGER.info("Creating dataset");
 		var location = Location.create(datasetPath);
-		int pid = location.getLock().getOwner();
+		int pid = tdb2 ? getTdb2LockOwner() : location.getLock().getOwner();
 		if (pid != 0) {
 			var process = ProcessHandle.allProcesses().filter(p -> p.pid() == pid).findFirst();
 			if (process.isPresent()) {
@@ -431,12 +579,68 @@ public class OwlTdbApp {
 				}
 			}
 		}
-		return TDBFactory.createDataset(location);
+		return tdb2 ? TDB2Factory.connectDataset(datasetPath) : TDBFactory.createDataset(location);
+	}
+
+	/*
+	 * Gets the process that holds the lock of a TDB2 dataset (or 0 if none), which (unlike with TDB1)
+	 * is left in the lock file after the process ends
+	 */
+	private int getTdb2LockOwner() {
+		var lockFile = new File(datasetPath, "tdb.lock");
+		if (!lockFile.isFile()) {
+			return 0;
+		}
+		var lock = ProcessFileLock.create(lockFile.getPath());
+		try {
+			if (lock.tryLock()) {
+				lock.unlock();
+				return 0;
+			}
+			return Integer.parseInt(Files.readString(lockFile.toPath()).trim());
+		} catch (IOException | NumberFormatException e) {
+			return 0;
+		} finally {
+			ProcessFileLock.release(lock);
+		}
+	}
+
+	private void releaseDataset(Dataset dataset) {
+		if (tdb2) {
+			org.apache.jena.tdb2.sys.TDBInternal.expel(dataset.asDatasetGraph());
+		} else {
+			TDBFactory.release(dataset);
+		}
+	}
+
+	/*
+	 * Gets the IRIs to (re)load given the loaded IRIs, which are left with the IRIs to unload
+	 */
+	private List<String> getIrisToLoad(List<String> relevant_iris, Collection<String> changed_iris, List<String> loaded_iris) {
+		List<String> to_load_iris = new ArrayList<>();  
+		
+		relevant_iris.stream().forEach(iri -> {
+			if (!loaded_iris.contains(iri)) {
+				to_load_iris.add(iri);
+			} else if (changed_iris.contains(iri)) {
+				to_load_iris.add(iri);
+				loaded_iris.remove(iri);
+			} else {
+				loaded_iris.remove(iri);
+			}
+		});
+		return to_load_iris;
 	}
   
 	private void loadToDefaultGraph(Dataset dataset) {
-		LOGGER.info("loading to default graph");
-		dataset.setDefaultModel(dataset.getUnionModel());
+		if (unionDefaultGraph) {
+			// the union is computed by readers at query time, so a copy made by a previous load is removed
+			LOGGER.info("clearing default graph (served as the union of named graphs)");
+			dataset.asDatasetGraph().getDefaultGraph().clear();
+		} else {
+			LOGGER.info("loading to default graph");
+			dataset.setDefaultModel(dataset.getUnionModel());
+		}
 	}
 	
 	private void loadToDefaultGraph(Dataset dataset, OwlCatalog catalog, List<String> iris) {
@@ -464,19 +668,56 @@ public class OwlTdbApp {
 		return coll;
 	}
 
-	private void loadNamedGraph(Dataset dataset, OwlCatalog catalog, String iri) {
-		LOGGER.info("Loading to " + iri);
+	/*
+	 * Replaces the named graphs of the given IRIs (or adds to the default graph) with their files
+	 * (in a write transaction), with the files parsed in parallel and their quads added by this thread
+	 */
+	private void loadGraphs(Dataset dataset, OwlCatalog catalog, List<String> iris, boolean toNamedGraphs) {
+		var dsg = dataset.asDatasetGraph();
+		var files = new LinkedHashMap<String, Node>();
+		for (var iri : iris) {
+			var graphName = toNamedGraphs ? NodeFactory.createURI(iri) : Quad.defaultGraphIRI;
+			if (toNamedGraphs) {
+				dsg.getGraph(graphName).clear();
+			}
+			files.put(getFilePath(catalog, iri), graphName);
+		}
+		LOGGER.info("Loading " + files.size() + " file(s) to " + (toNamedGraphs ? "named graphs" : "default graph"));
+		long count = new QuadPipeline(parallelism).load(dsg, files);
+		LOGGER.info("Loaded " + count + " triple(s)");
+	}
+
+	/*
+	 * Loads the files of the given IRIs to their named graphs (or the default graph) of a TDB2 dataset
+	 * with the bulk loader (which manages its own transaction)
+	 */
+	private void bulkLoad(Dataset dataset, OwlCatalog catalog, List<String> iris, boolean toNamedGraphs) {
+		var dsg = dataset.asDatasetGraph();
+		DataLoader dataLoader;
+		switch (loader) {
+			case phased: dataLoader = LoaderFactory.phasedLoader(dsg, LoaderOps.outputToLog()); break;
+			case sequential: dataLoader = LoaderFactory.sequentialLoader(dsg, LoaderOps.outputToLog()); break;
+			case basic: dataLoader = LoaderFactory.basicLoader(dsg, LoaderOps.outputToLog()); break;
+			default: dataLoader = LoaderFactory.parallelLoader(dsg, LoaderOps.outputToLog());
+		}
+		dataLoader.startBulk();
 		try {
-			var uri = new File(new URI(catalog.resolveURI(iri))).toString();
-			Model model = dataset.getNamedModel(iri);
-			GraphTDB graph = (GraphTDB) model.getGraph();
-			graph.clear();
-			
-			TDBLoader.load(graph, uri, true);
-		} catch (URISyntaxException e) {
-			LOGGER.error(e);
+			for (var iri : iris) {
+				LOGGER.info("Loading to " + (toNamedGraphs ? iri : "default graph") + " (bulk)");
+				var stream = toNamedGraphs ? LoaderOps.toNamedGraph(dataLoader.stream(), NodeFactory.createURI(iri)) : dataLoader.stream();
+				RDFParser.source(getFilePath(catalog, iri)).parse(stream);
+			}
+			dataLoader.finishBulk();
+		} catch (RuntimeException e) {
+			dataLoader.finishException(e);
+			throw e;
 		}
-   }
+		LOGGER.info("Bulk loaded " + dataLoader.countTriples() + " triple(s) and " + dataLoader.countQuads() + " quad(s)");
+	}
+
+	private String getFilePath(OwlCatalog catalog, String iri) {
+		return new File(URI.create(catalog.resolveURI(iri))).toString();
+	}
 
 	private void removeNamedGraph(Dataset dataset, String iri) {
 		LOGGER.info("Removing " + iri);
@@ -524,6 +765,28 @@ public class OwlTdbApp {
 		}
 	}
 
+	/**
+	 * A parameter converter for the loader enumeration.
+	 */
+	public static class LoaderConverter implements IStringConverter<Loader> {
+
+		/**
+		 * Creates a new LoaderConverter object
+		 */
+		public LoaderConverter() {
+		}
+		
+		@Override
+		public Loader convert(String value) {
+			try {
+				return Loader.valueOf(value);
+			} catch (IllegalArgumentException e) {
+				throw new ParameterException("Value " + value + " is not valid (only: parallel, phased, sequential or basic)");
+			}
+		}
+
+	}
+
 	/**
 	 * A parameter converter for the command enumeration (start/stop).
 	 */
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2024 California Institute of Technology ("Caltech").
+ * U.S. Government sponsorship acknowledged.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencaesar.owl.tdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.log4j.Logger;
+
+/**
+ * A pipeline that parses files concurrently (on a pool of parser threads) into batches of quads, which
+ * a single writer (the calling thread, e.g., in a write transaction) adds to a dataset graph, so that
+ * parsing (which is CPU bound) overlaps with the index writes. The queue of batches is bounded, so the
+ * parsers wait when the writer falls behind (which bounds the memory used).
+ *
+ * Like loading a file to a graph, only the triples of a file (or the quads of its default graph) are
+ * loaded, to the graph of the file.
+ */
+final class QuadPipeline {
+
+    private final static Logger LOGGER = Logger.getLogger(QuadPipeline.class);
+
+    /*
+     * The number of quads of a batch
+     */
+    private static final int BATCH_SIZE = 10_000;
+
+    /*
+     * The number of batches that can wait for the writer per parser
+     */
+    private static final int BATCHES_PER_PARSER = 4;
+
+    private final int parallelism;
+
+    /*
+     * A batch of quads (and prefixes) of a file, the last of which is marked as such (or the error
+     * of parsing the file)
+     */
+    private static class Batch {
+        final String file;
+        final Node graphName;
+        final List<Quad> quads = new ArrayList<>(BATCH_SIZE);
+        final List<String[]> prefixes = new ArrayList<>();
+        boolean last;
+        RuntimeException error;
+
+        Batch(String file, Node graphName) {
+            this.file = file;
+            this.graphName = graphName;
+        }
+    }
+
+    /**
+     * Creates a new QuadPipeline object
+     *
+     * @param parallelism the number of parser threads
+     */
+    QuadPipeline(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Parses the given files and adds their triples to the given graphs (which are not cleared)
+     *
+     * @param dsg the dataset graph (written to by the calling thread only)
+     * @param files a map from the path of a file to the name of the graph to load it into
+     * @return the number of added quads
+     */
+    long load(DatasetGraph dsg, Map<String, Node> files) {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(parallelism * BATCHES_PER_PARSER);
+        ExecutorService parsers = Executors.newFixedThreadPool(Math.min(parallelism, files.size()), r -> {
+            var thread = new Thread(r, "owl-tdb-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            files.forEach((file, graphName) -> parsers.execute(() -> parse(file, graphName, queue)));
+            long count = 0;
+            int remaining = files.size();
+            while (remaining > 0) {
+                var batch = queue.take();
+                if (batch.error != null) {
+                    throw batch.error;
+                }
+                if (!batch.prefixes.isEmpty()) {
+                    var graph = Quad.isDefaultGraph(batch.graphName) ? dsg.getDefaultGraph() : dsg.getGraph(batch.graphName);
+                    for (String[] prefix : batch.prefixes) {
+                        graph.getPrefixMapping().setNsPrefix(prefix[0], prefix[1]);
+                    }
+                }
+                for (Quad quad : batch.quads) {
+                    dsg.add(quad);
+                }
+                count += batch.quads.size();
+                if (batch.last) {
+                    remaining--;
+                    LOGGER.info("Loaded " + batch.file + " to " + (Quad.isDefaultGraph(batch.graphName) ? "default graph" : batch.graphName.getURI()));
+                }
+            }
+            return count;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            parsers.shutdownNow(); // e.g., stop the parsers waiting on a full queue after an error
+        }
+    }
+
+    private static void parse(String file, Node graphName, BlockingQueue<Batch> queue) {
+        var sink = new StreamRDFBase() {
+            Batch batch = new Batch(file, graphName);
+
+            @Override
+            public void triple(Triple triple) {
+                batch.quads.add(Quad.create(graphName, triple));
+                if (batch.quads.size() == BATCH_SIZE) {
+                    put(batch);
+                    batch = new Batch(file, graphName);
+                }
+            }
+
+            @Override
+            public void prefix(String prefix, String iri) {
+                batch.prefixes.add(new String[] { prefix, iri });
+            }
+
+            void put(Batch batch) {
+                try {
+                    queue.put(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        try {
+            RDFParser.source(file).parse(sink);
+            sink.batch.last = true;
+            sink.put(sink.batch);
+        } catch (RuntimeException e) {
+            if (!Thread.currentThread().isInterrupted()) {
+                var error = new Batch(file, graphName);
+                error.error = new RuntimeException("Error parsing " + file + ": " + e.getMessage(), e);
+                sink.put(error);
+            }
+        }
+    }
+}
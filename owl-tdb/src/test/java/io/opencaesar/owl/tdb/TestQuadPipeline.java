@@ -0,0 +1,114 @@
+package io.opencaesar.owl.tdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Quad;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestQuadPipeline {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testFilesToGraphs() throws Exception {
+        var files = new LinkedHashMap<String, Node>();
+        for (int i = 0; i < 8; i++) {
+            // more triples than a batch in some files
+            files.put(file("g" + i + ".nt", i, (i % 3 == 0) ? 25_000 : 10), graph(i));
+        }
+        var dsg = DatasetGraphFactory.create();
+
+        long count = new QuadPipeline(3).load(dsg, files);
+
+        Assert.assertEquals(3 * 25_000 + 5 * 10, count);
+        for (int i = 0; i < 8; i++) {
+            // every graph has the triples of its file only
+            var graph = dsg.getGraph(graph(i));
+            Assert.assertEquals((i % 3 == 0) ? 25_000 : 10, graph.size());
+            Assert.assertTrue(graph.contains(triple(i, 0)));
+            Assert.assertFalse(graph.contains(triple((i + 1) % 8, 0)));
+        }
+    }
+
+    @Test
+    public void testDefaultGraphAndPrefixes() throws Exception {
+        var path = new File(tmp.getRoot(), "a.ttl");
+        Files.write(path.toPath(), "@prefix ex: <http://example.com/> .\nex:a ex:p 1 .\n".getBytes(StandardCharsets.UTF_8));
+        var dsg = DatasetGraphFactory.create();
+
+        long count = new QuadPipeline(2).load(dsg, Map.of(path.getPath(), Quad.defaultGraphIRI));
+
+        Assert.assertEquals(1, count);
+        Assert.assertEquals(1, dsg.getDefaultGraph().size());
+        Assert.assertEquals("http://example.com/", dsg.getDefaultGraph().getPrefixMapping().getNsPrefixURI("ex"));
+    }
+
+    @Test
+    public void testGraphsAreNotCleared() throws Exception {
+        var dsg = DatasetGraphFactory.create();
+        dsg.add(Quad.create(graph(0), triple(99, 0)));
+
+        new QuadPipeline(1).load(dsg, Map.of(file("g0.nt", 0, 3), graph(0)));
+
+        Assert.assertEquals(4, dsg.getGraph(graph(0)).size());
+    }
+
+    @Test
+    public void testNoFiles() {
+        Assert.assertEquals(0, new QuadPipeline(4).load(DatasetGraphFactory.create(), Map.of()));
+    }
+
+    @Test
+    public void testParseError() throws Exception {
+        var files = new LinkedHashMap<String, Node>();
+        for (int i = 0; i < 6; i++) {
+            files.put(file("g" + i + ".nt", i, 25_000), graph(i));
+        }
+        var bad = new File(tmp.getRoot(), "bad.nt");
+        Files.write(bad.toPath(), "<http://example.com/a> <http://example.com/p> .\n".getBytes(StandardCharsets.UTF_8));
+        files.put(bad.getPath(), graph(6));
+
+        // the error of the bad file ends the load (rather than waiting on the parsers of the other files)
+        try {
+            new QuadPipeline(2).load(DatasetGraphFactory.create(), files);
+            Assert.fail("expected a parse error");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(bad.getPath()));
+        }
+    }
+
+    private String file(String path, int graph, int triples) throws IOException {
+        var content = new StringBuilder();
+        for (int i = 0; i < triples; i++) {
+            var t = triple(graph, i);
+            content.append("<" + t.getSubject().getURI() + "> <" + t.getPredicate().getURI() + "> <" + t.getObject().getURI() + "> .\n");
+        }
+        File file = new File(tmp.getRoot(), path);
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        return file.getPath();
+    }
+
+    private static Node graph(int index) {
+        return NodeFactory.createURI("http://example.com/g" + index);
+    }
+
+    private static Triple triple(int graph, int index) {
+        return Triple.create(
+                NodeFactory.createURI("http://example.com/g" + graph + "#s" + index),
+                NodeFactory.createURI("http://example.com/p"),
+                NodeFactory.createURI("http://example.com/o" + index));
+    }
+}